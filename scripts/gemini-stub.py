@@ -0,0 +1,75 @@
+"""
+ gemini-stub.py — server local care imita API-ul Gemini, pentru testat chat-ul de suport
+ fara cheie si fara retea. Porneste backend-ul cu:
+   mvn spring-boot:run -Dspring-boot.run.arguments=--gemini.base-url=http://127.0.0.1:9999
+
+   python scripts/gemini-stub.py [--port 9999] [--delay 2.0] [--token-delay 0.3]
+
+ :generateContent       -> raspunde dupa --delay secunde
+ :streamGenerateContent -> trimite fragmentele ca SSE, la --token-delay secunde unul de altul
+ Un mesaj care contine "slow" se blocheaza 30s la mijlocul stream-ului (test pentru idle-timeout).
+"""
+import argparse
+import json
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+TOKENS = ["Coletul ", "tău ", "este ", "în ", "curs ", "de ", "livrare."]
+
+
+def chunk(text):
+    body = json.dumps({"candidates": [{"content": {"role": "model", "parts": [{"text": text}]}}]})
+    return ("data: " + body + "\r\n\r\n").encode()
+
+
+def handler(args):
+    class Handler(BaseHTTPRequestHandler):
+        protocol_version = "HTTP/1.1"
+
+        def do_POST(self):
+            body = self.rfile.read(int(self.headers.get("Content-Length", 0))).decode()
+            if ":streamGenerateContent" in self.path:
+                self.stream("slow" in body)
+            else:
+                self.answer()
+
+        def answer(self):
+            time.sleep(args.delay)
+            data = json.dumps({"candidates": [{"content": {"parts": [{"text": "".join(TOKENS)}]}}]}).encode()
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(data)))
+            self.end_headers()
+            self.wfile.write(data)
+
+        def stream(self, slow):
+            self.send_response(200)
+            self.send_header("Content-Type", "text/event-stream")
+            self.send_header("Transfer-Encoding", "chunked")
+            self.end_headers()
+            for i, token in enumerate(TOKENS):
+                time.sleep(30 if slow and i == len(TOKENS) // 2 else args.token_delay)
+                data = chunk(token)
+                try:
+                    self.wfile.write(b"%x\r\n" % len(data) + data + b"\r\n")
+                    self.wfile.flush()
+                except OSError:
+                    return  # clientul a renuntat (timeout)
+            self.wfile.write(b"0\r\n\r\n")
+
+        def log_message(self, *a):
+            pass
+
+    return Handler
+
+
+if __name__ == "__main__":
+    p = argparse.ArgumentParser()
+    p.add_argument("--port", type=int, default=9999)
+    p.add_argument("--delay", type=float, default=2.0)
+    p.add_argument("--token-delay", type=float, default=0.3)
+    args = p.parse_args()
+    ThreadingHTTPServer.daemon_threads = True
+    ThreadingHTTPServer.request_queue_size = 1024
+    print(f"Gemini stub on http://127.0.0.1:{args.port}")
+    ThreadingHTTPServer(("127.0.0.1", args.port), handler(args)).serve_forever()
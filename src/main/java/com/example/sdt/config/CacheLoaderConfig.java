@@ -0,0 +1,19 @@
+package com.example.sdt.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Firele virtuale pe care ruleaza load-urile cache-urilor async (TrackingCache, UserStateCache,
+// SupportContextStore): un singur executor, inchis odata cu contextul. close() asteapta
+// load-urile in curs, iar cache-urile (care depind de el) sunt distruse inainte.
+@Configuration
+public class CacheLoaderConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService cacheLoaders() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.sdt.config;
+
+import com.example.sdt.domain.Courier;
+import com.example.sdt.domain.Customer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Emailurile se scriu normalizate (Emails), dar randurile mai vechi pot avea litere mari sau
+// spatii. La pornire le aducem la forma normala in bucati mici pe id (fiecare bucata e o
+// tranzactie scurta, blocheaza doar randurile ei), apoi cream indexurile unice pe lower(email)
+// folosite de cautari. CONCURRENTLY: tabela ramane disponibila pentru scrieri cat se construiesc.
+// Doua randuri care ar ajunge la acelasi email (comparat tot dupa lower(btrim), ca " a@x.ro" si
+// "A@x.ro " din acelasi lot sa nu fie scrise amandoua ca a@x.ro) nu se ating si nici indexul
+// unic nu se creeaza cat timp exista: trebuie rezolvate de mana (apare in log).
+@Component
+public class EmailNormalization {
+    private static final Logger log = LoggerFactory.getLogger(EmailNormalization.class);
+
+    private static final List<String> TABLES = List.of("couriers", "customer", "app_user");
+
+    private static final String NORMALIZE_SQL = """
+            update %1$s c set email = lower(btrim(c.email))
+             where c.id > ? and c.id <= ? and c.email <> lower(btrim(c.email))
+               and not exists (select 1 from %1$s o where o.id <> c.id and lower(btrim(o.email)) = lower(btrim(c.email)))
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final EntityManagerFactory emf;
+
+    @Value("${app.emails.backfill.batch-size:1000}")
+    private int batchSize;
+
+    public EmailNormalization(JdbcTemplate jdbc, EntityManagerFactory emf) {
+        this.jdbc = jdbc;
+        this.emf = emf;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        for (String table : TABLES) {
+            int changed = backfill(table);
+            if (changed > 0) {
+                log.info("Normalized {} emails in {}", changed, table);
+                evictCached(table);
+            }
+            ensureIndex(table);
+        }
+        // inlocuit de ux_customer_email_lower (si oricum dublura a constrangerii unice pe email)
+        jdbc.execute("drop index concurrently if exists ix_customer_email");
+    }
+
+    private int backfill(String table) {
+        Boolean pending = jdbc.queryForObject(
+                "select exists (select 1 from " + table + " where email <> lower(btrim(email)))", Boolean.class);
+        if (!Boolean.TRUE.equals(pending)) return 0;
+
+        String sql = NORMALIZE_SQL.formatted(table);
+        int changed = 0;
+        long lastId = 0;
+        while (true) {
+            Long upper = jdbc.queryForObject(
+                    "select max(id) from (select id from " + table + " where id > ? order by id limit ?) b",
+                    Long.class, lastId, batchSize);
+            if (upper == null) break;
+            changed += jdbc.update(sql, lastId, upper);
+            lastId = upper;
+        }
+        Long left = jdbc.queryForObject(
+                "select count(*) from " + table + " where email <> lower(btrim(email))", Long.class);
+        if (left != null && left > 0) {
+            log.warn("{} emails in {} not normalized: another row already has the normalized form", left, table);
+        }
+        return changed;
+    }
+
+    private void ensureIndex(String table) {
+        String index = "ux_" + table + "_email_lower";
+        List<Boolean> valid = jdbc.queryForList(
+                "select indisvalid from pg_index where indexrelid = to_regclass(?)", Boolean.class, index);
+        if (valid.contains(Boolean.TRUE)) return;
+        // ramas invalid dupa un CREATE INDEX CONCURRENTLY esuat
+        if (!valid.isEmpty()) jdbc.execute("drop index concurrently if exists " + index);
+
+        Long duplicates = jdbc.queryForObject("select count(*) from (select 1 from " + table
+                + " where email is not null group by lower(btrim(email)) having count(*) > 1) d", Long.class);
+        if (duplicates != null && duplicates > 0) {
+            log.warn("{} emails in {} differ only by case or spaces; {} not created, email lookups will scan the table",
+                    duplicates, table, index);
+            return;
+        }
+        try {
+            jdbc.execute("create unique index concurrently if not exists " + index + " on " + table + " (lower(email))");
+            log.info("Created index {}", index);
+        } catch (DataAccessException e) {
+            // un duplicat scris cat se construia indexul; se reincearca la urmatoarea pornire
+            log.warn("Could not create {}", index, e);
+        }
+    }
+
+    // randurile schimbate pe langa Hibernate nu mai corespund cu cache-ul de nivel 2
+    private void evictCached(String table) {
+        var cache = emf.unwrap(SessionFactory.class).getCache();
+        switch (table) {
+            case "couriers" -> {
+                cache.evict(Courier.class);
+                cache.evictQueryRegion(EntityCacheConfig.COURIERS_BY_EMAIL);
+            }
+            case "customer" -> {
+                cache.evict(Customer.class);
+                cache.evictQueryRegion(EntityCacheConfig.CUSTOMERS_BY_EMAIL);
+            }
+            default -> { }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sdt.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+// Cache-ul de nivel 2 al Hibernate (Caffeine prin JCache, local fiecarei instante) pentru
+// curieri si clienti: entitatile dupa id si cautarile dupa email. Regiunile sunt create aici
+// cu marime si TTL proprii; o regiune lipsa opreste pornirea (missing_cache_strategy=fail).
+// Scrierile prin Hibernate actualizeaza/invalideaza singure cache-ul; cine scrie in couriers
+// direct prin JDBC (importul) scoate randurile atinse. Exceptie: flush-ul de pozitii, a carui
+// sursa de adevar e CourierLocationStore, nu cache-ul. TTL-ul limiteaza cat de vechi pot fi
+// datele scrise de alte instante.
+@Configuration
+public class EntityCacheConfig {
+    public static final String COURIERS = "couriers";
+    public static final String COURIERS_BY_EMAIL = "couriers-by-email";
+    public static final String CUSTOMERS = "customers";
+    public static final String CUSTOMERS_BY_EMAIL = "customers-by-email";
+
+    // regiuni cerute de Hibernate cand query cache-ul e pornit; timestamps nu are voie sa
+    // piarda intrari (ar face valide rezultate vechi), deci e nelimitata (o intrare per tabela)
+    private static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(MeterRegistry meters,
+                                           @Value("${app.couriers.cache.max-size:50000}") long couriers,
+                                           @Value("${app.customers.cache.max-size:100000}") long customers,
+                                           @Value("${app.entity-cache.ttl:10m}") Duration ttl) {
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        create(manager, meters, COURIERS, couriers, ttl);
+        create(manager, meters, COURIERS_BY_EMAIL, couriers, ttl);
+        create(manager, meters, CUSTOMERS, customers, ttl);
+        create(manager, meters, CUSTOMERS_BY_EMAIL, customers, ttl);
+        create(manager, meters, DEFAULT_QUERY_RESULTS, 1000, ttl);
+        create(manager, meters, UPDATE_TIMESTAMPS, -1, null);
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheManagerCustomizer(CacheManager entityCacheManager) {
+        return props -> props.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static void create(CacheManager manager, MeterRegistry meters, String region, long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        if (maxSize >= 0) config.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) config.setExpireAfterWrite(OptionalLong.of(TimeUnit.NANOSECONDS.convert(ttl)));
+        config.setStatisticsEnabled(true);
+        Cache<Object, Object> cache = manager.createCache(region, config);
+        JCacheMetrics.monitor(meters, cache);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.sdt.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// La pornire (inainte sa porneasca serverul web) verifica ca fiecare secventa de id-uri
+// e inaintea MAX(id) din tabela. Tabelele migrate de la IDENTITY au deja randuri, iar
+// secventa noua porneste de la 1 - in cazul asta o mutam dupa MAX(id).
+@Component
+public class IdSequenceCheck implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceCheck.class);
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbc;
+
+    public IdSequenceCheck(EntityManagerFactory emf, JdbcTemplate jdbc) {
+        this.emf = emf;
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        emf.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator gen
+                    && persister instanceof AbstractEntityPersister entity) {
+                check(entity.getTableName(), entity.getIdentifierColumnNames()[0],
+                        gen.getDatabaseStructure().getPhysicalName().render(), gen.getDatabaseStructure().getIncrementSize());
+            }
+        });
+    }
+
+    private void check(String table, String idColumn, String sequence, int increment) {
+        long maxId = jdbc.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        Map<String, Object> seq = jdbc.queryForMap("select last_value, is_called from " + sequence);
+        long lastValue = ((Number) seq.get("last_value")).longValue();
+        long nextValue = Boolean.TRUE.equals(seq.get("is_called")) ? lastValue + increment : lastValue;
+
+        // pooled-lo foloseste [next, next + increment); orice next > maxId e sigur
+        if (nextValue > maxId) {
+            log.info("Sequence {} is ahead of {}.{} (next {}, max {})", sequence, table, idColumn, nextValue, maxId);
+            return;
+        }
+        long target = maxId + 1;
+        jdbc.queryForObject("select setval('" + sequence + "', ?, false)", Long.class, target);
+        log.warn("Sequence {} was behind {}.{} (next {}, max {}), moved to {}",
+                sequence, table, idColumn, nextValue, maxId, target);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.sdt.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.TreeSet;
+
+// Tabela package_event e partitionata pe luni (UTC) dupa "at", ceea ce ddl-auto nu stie sa
+// creeze, asa ca o cream aici. Partitiile se creeaza din timp (luna curenta + partitions-ahead).
+// Istoricul se scrie in aceeasi tranzactie cu schimbarea coletului, deci o luna fara partitie
+// ar bloca toate scrierile de colete: randurile ajung atunci in package_event_default (cu
+// warning in log), iar urmatoarea rulare le muta in partitia lunii lor.
+// DDL-ul ruleaza in tranzactie sub un advisory lock, ca instantele pornite odata sa nu se
+// calce pe picioare in catalog.
+// Indexul (package_id, at) INCLUDE (...) acopera tot ce citeste timeline-ul: index-only scan.
+@Component
+public class PackageEventPartitions implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(PackageEventPartitions.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    static final String DEFAULT_PARTITION = "package_event_default";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${app.package-events.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    public PackageEventPartitions(JdbcTemplate jdbc, TransactionTemplate tx) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        tx.executeWithoutResult(status -> {
+            lock();
+            jdbc.execute("""
+                    create table if not exists package_event (
+                        package_id          bigint      not null,
+                        at                  timestamptz not null,
+                        type                varchar(20) not null,
+                        courier_id          bigint,
+                        previous_courier_id bigint,
+                        actor               varchar(255)
+                    ) partition by range (at)
+                    """);
+            jdbc.execute("""
+                    create index if not exists ix_package_event_timeline on package_event (package_id, at)
+                        include (type, courier_id, previous_courier_id, actor)
+                    """);
+            jdbc.execute("create table if not exists " + DEFAULT_PARTITION + " partition of package_event default");
+        });
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${app.package-events.partition-cron:0 0 3 * * *}", zone = "UTC")
+    public void ensurePartitions() {
+        tx.executeWithoutResult(status -> {
+            lock();
+            TreeSet<LocalDate> months = new TreeSet<>(jdbc.queryForList(
+                    "select distinct date_trunc('month', at at time zone 'UTC')::date from " + DEFAULT_PARTITION,
+                    Date.class).stream().map(Date::toLocalDate).toList());
+            if (!months.isEmpty()) {
+                log.warn("{} has rows for months {}: package event partitions were missing", DEFAULT_PARTITION, months);
+            }
+            LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+            for (int i = 0; i <= partitionsAhead; i++) {
+                months.add(month.plusMonths(i));
+            }
+            months.forEach(this::ensurePartition);
+        });
+    }
+
+    // O partitie noua nu se poate atasa cat timp DEFAULT are randuri din intervalul ei: le mutam
+    // intr-o tabela separata, apoi o atasam (ATTACH creeaza si indexul de pe parinte).
+    private void ensurePartition(LocalDate from) {
+        String name = "package_event_" + from.format(SUFFIX);
+        Boolean exists = jdbc.queryForObject("select to_regclass(?) is not null", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) return;
+        String lower = "'" + from + " 00:00:00+00'";
+        String upper = "'" + from.plusMonths(1) + " 00:00:00+00'";
+        jdbc.execute("create table " + name + " (like package_event including defaults including constraints)");
+        int moved = jdbc.update("with moved as (delete from " + DEFAULT_PARTITION + " where at >= " + lower
+                + " and at < " + upper + " returning *) insert into " + name + " select * from moved");
+        jdbc.execute("alter table package_event attach partition " + name
+                + " for values from (" + lower + ") to (" + upper + ")");
+        if (moved > 0) log.info("Created partition {} with {} events moved from {}", name, moved, DEFAULT_PARTITION);
+        else log.info("Created partition {}", name);
+    }
+
+    private void lock() {
+        jdbc.execute("select pg_advisory_xact_lock(hashtext('package_event_partitions'))");
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.sdt.config;
 
+import com.example.sdt.security.JwtAuthFilter;
 import com.example.sdt.security.JwtService;
+import com.example.sdt.security.UserStateCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -12,15 +14,25 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.Map;
 
 @Configuration
 public class SecurityConfig {
 
+    // hash-uri noi: {bcrypt} cu costul configurat. Cele vechi, salvate fara prefix, se verifica
+    // tot cu bcrypt; upgradeEncoding le marcheaza pentru re-hash la urmatorul login reusit,
+    // la fel ca pe cele cu cost mai mic decat app.auth.password.bcrypt-strength
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(@Value("${app.auth.password.bcrypt-strength:10}") int strength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
@@ -29,24 +41,26 @@ public class SecurityConfig {
     }
 
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService, UserStateCache users) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(c -> {
                 })
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
+                        .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/api/auth/logout").permitAll()
                         .requestMatchers("/actuator/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/api/support/**").permitAll()
                         .anyRequest().permitAll()
-                );
+                )
+                .addFilterBefore(new JwtAuthFilter(jwtService, users), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
     @Bean
-    public JwtService jwtService(@Value("${app.jwt.secret}") String secret) {
-        return new JwtService(secret);
+    public JwtService jwtService(@Value("${app.jwt.secret}") String secret,
+                                 @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
+        return new JwtService(secret, verifiedCacheSize);
     }
 
 }
\ No newline at end of file
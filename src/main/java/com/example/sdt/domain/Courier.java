@@ -3,16 +3,25 @@ package com.example.sdt.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(
         name = "couriers",
-        uniqueConstraints = { @UniqueConstraint(name = "uk_couriers_email", columnNames = "email") }
+        uniqueConstraints = { @UniqueConstraint(name = "uk_couriers_email", columnNames = "email") },
+        indexes = { @Index(name = "ix_couriers_manager_id", columnList = "manager_id") }
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "couriers")
+// UPDATE doar cu coloanele schimbate: last_lat/last_lng le scrie CourierLocationStore.flush(),
+// iar o entitate incarcata inainte de un flush nu trebuie sa le rescrie cu valorile vechi
+@DynamicUpdate
 public class Courier {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("couriers_seq")
     private Long id;
 
     @NotBlank
@@ -25,7 +34,9 @@ public class Courier {
     private String email;
 
     //un curier poate avea un "manager" care e tot curier (poate fi null)
-    @ManyToOne
+    // lazy: altfel orice curier incarcat trage dupa el tot lantul de manageri;
+    // getManager().getId() nu initializeaza proxy-ul
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "manager_id")
     private Courier manager;
 
@@ -43,7 +54,7 @@ public class Courier {
     public void setName(String name) { this.name = name; }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { this.email = Emails.normalize(email); }
 
     public Courier getManager() { return manager; }
     public void setManager(Courier manager) { this.manager = manager; }
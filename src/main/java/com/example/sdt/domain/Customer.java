@@ -2,21 +2,22 @@ package com.example.sdt.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.Instant;
 
 @Entity
 @Table(
         name = "customer",
         indexes = {
-                @Index(name = "ix_customer_email", columnList = "email")
-        },
-        uniqueConstraints = {
-                @UniqueConstraint(name = "uq_customer_external_id", columnNames = {"external_id"})
+                @Index(name = "ix_customer_created_at_id", columnList = "created_at, id")
         }
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("customer_seq")
     private Long Id;
 
     @Column
@@ -79,7 +80,7 @@ public class Customer {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        this.email = Emails.normalize(email);
     }
 
     public String getContactPerson() {
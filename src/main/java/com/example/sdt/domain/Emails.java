@@ -0,0 +1,16 @@
+package com.example.sdt.domain;
+
+import java.util.Locale;
+
+// Forma in care se scriu emailurile in baza (couriers, customer, app_user): fara spatii la
+// capete, litere mici. Cautarile compara lower(email) = lower(?), pe indexurile unice
+// functionale din EmailNormalization, deci gasesc si randurile scrise inainte de normalizare.
+public final class Emails {
+    private Emails() {}
+
+    public static String normalize(String email) {
+        if (email == null) return null;
+        String t = email.trim();
+        return t.isEmpty() ? null : t.toLowerCase(Locale.ROOT);
+    }
+}
@@ -9,13 +9,16 @@ import java.time.Instant;
 @Entity
 @Table(name = "packages", indexes = {
         @Index(name = "ix_packages_tracking_code", columnList = "tracking_code", unique = true),
-        @Index(name = "ix_packages_status", columnList = "status")
+        @Index(name = "ix_packages_status", columnList = "status"),
+        @Index(name = "ix_packages_status_id", columnList = "status, id"),
+        @Index(name = "ix_packages_sender_id", columnList = "sender_customer_id, id"),
+        @Index(name = "ix_packages_courier_id", columnList = "courier_id, id")
 })
 public class PackageDelivery {
 
     //---VARIABILELE INITIALE
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @PooledSequence("packages_seq")
     private Long id;
 
     @NotBlank
@@ -37,6 +40,10 @@ public class PackageDelivery {
     @Column(nullable = false)
     private String deliveryAddress;
 
+    // coordonatele ridicarii (optionale), folosite la alocarea automata
+    private Double pickupLat;
+    private Double pickupLng;
+
 
     @ManyToOne(optional = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "courier_id")
@@ -60,6 +67,8 @@ public class PackageDelivery {
     public Double getWeightKg() { return weightKg; }
     public String getPickupAddress() { return pickupAddress; }
     public String getDeliveryAddress() { return deliveryAddress; }
+    public Double getPickupLat() { return pickupLat; }
+    public Double getPickupLng() { return pickupLng; }
     public Courier getCourier() { return courier; }
     public Instant getAssignedAt() { return assignedAt; }
     public Instant getDeliveredAt() { return deliveredAt; }
@@ -71,6 +80,8 @@ public class PackageDelivery {
     public void setWeightKg(Double weightKg) { this.weightKg = weightKg; }
     public void setPickupAddress(String pickupAddress) { this.pickupAddress = pickupAddress; }
     public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+    public void setPickupLat(Double pickupLat) { this.pickupLat = pickupLat; }
+    public void setPickupLng(Double pickupLng) { this.pickupLng = pickupLng; }
     public void setCourier(Courier courier) { this.courier = courier; }
     public void setAssignedAt(Instant assignedAt) { this.assignedAt = assignedAt; }
     public void setDeliveredAt(Instant deliveredAt) { this.deliveredAt = deliveredAt; }
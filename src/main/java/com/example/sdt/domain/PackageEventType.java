@@ -0,0 +1,8 @@
+package com.example.sdt.domain;
+
+public enum PackageEventType {
+    CREATED,
+    ASSIGNED,
+    REASSIGNED,
+    DELIVERED
+}
@@ -0,0 +1,17 @@
+package com.example.sdt.domain;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Id din secventa cu optimizer pooled-lo; allocation size se configureaza per secventa
+// prin spring.jpa.properties.sdt.id.allocation-size.<secventa>
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+    String value();
+}
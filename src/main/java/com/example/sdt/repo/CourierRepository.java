@@ -1,12 +1,33 @@
 package com.example.sdt.repo;
 
+import com.example.sdt.config.EntityCacheConfig;
 import com.example.sdt.domain.Courier;
 import com.example.sdt.domain.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CourierRepository extends JpaRepository<Courier, Long> {
+    // fara diferente de litere, pe ux_couriers_email_lower; query cache: rezultatul
+    // (inclusiv "nu exista") se tine pana la o scriere in couriers
+    @Query("select c from Courier c where lower(c.email) = lower(:email)")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheConfig.COURIERS_BY_EMAIL)
+    })
     Optional<Courier> findByEmail(String email);
 
-}
\ No newline at end of file
+    @Query("select c.id from Courier c where c.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    List<Courier> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+}
@@ -1,11 +1,39 @@
 package com.example.sdt.repo;
 
+import com.example.sdt.config.EntityCacheConfig;
 import com.example.sdt.domain.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CustomerRepository extends JpaRepository<Customer,Long> {
+    // ambele fara diferente de litere, pe ux_customer_email_lower
+    @Query("select count(c) > 0 from Customer c where lower(c.email) = lower(:email)")
     boolean existsByEmail(String email);
-    Optional<Customer> findFirstByEmailIgnoreCase(String email);
+
+    @Query("select c from Customer c where lower(c.email) = lower(:email)")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheConfig.CUSTOMERS_BY_EMAIL)
+    })
+    Optional<Customer> findByEmail(String email);
+
+    @Query("select c.id from Customer c where c.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    // paginare keyset pe (createdAt, id), cei mai noi primii; foloseste ix_customer_created_at_id
+    @Query("select c from Customer c order by c.createdAt desc, c.id desc")
+    List<Customer> findNewest(Limit limit);
+
+    @Query("select c from Customer c where (c.createdAt, c.id) < (:createdAt, :id) order by c.createdAt desc, c.id desc")
+    List<Customer> findNewestBefore(Instant createdAt, Long id, Limit limit);
 }
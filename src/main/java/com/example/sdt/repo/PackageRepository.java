@@ -2,18 +2,62 @@ package com.example.sdt.repo;
 
 import com.example.sdt.domain.PackageDelivery;
 import com.example.sdt.domain.PackageStatus;
+import com.example.sdt.service.SupportPackageLine;
+import com.example.sdt.service.TrackingView;
+import com.example.sdt.web.dto.PackageDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Pageable;
 
 public interface PackageRepository extends JpaRepository<PackageDelivery, Long> {
+
+    // proiectie direct in PackageDto: p.courier.id / p.sender.id se citesc din coloanele FK,
+    // fara join, fara entitati in persistence context si fara proxy-uri lazy
+    String DTO_SELECT = """
+            select new com.example.sdt.web.dto.PackageDto(
+                p.id, p.trackingCode, p.status, p.weightKg, p.pickupAddress, p.deliveryAddress,
+                p.pickupLat, p.pickupLng, p.courier.id, p.assignedAt, p.deliveredAt, p.sender.id)
+            from PackageDelivery p
+            """;
+
+    @Query(DTO_SELECT + "where p.id = :id")
+    Optional<PackageDto> findDtoById(Long id);
+
+    @Query(value = DTO_SELECT + "where p.sender.id = :senderId",
+            countQuery = "select count(p) from PackageDelivery p where p.sender.id = :senderId")
+    Page<PackageDto> findDtoBySenderId(Long senderId, Pageable pageable);
+
+    @Query(value = DTO_SELECT + "where p.courier.id = :courierId",
+            countQuery = "select count(p) from PackageDelivery p where p.courier.id = :courierId")
+    Page<PackageDto> findDtoByCourierId(Long courierId, Pageable pageable);
+
+    @Query(DTO_SELECT + "where p.sender.id = :senderId and p.id < :id order by p.id desc")
+    List<PackageDto> findDtoBySenderIdBefore(Long senderId, Long id, Limit limit);
+
+    @Query(DTO_SELECT + "where p.courier.id = :courierId and p.id < :id order by p.id desc")
+    List<PackageDto> findDtoByCourierIdBefore(Long courierId, Long id, Limit limit);
+
     Page<PackageDelivery> findByCourierId(Long courierId, Pageable pageable);
     List<PackageDelivery> findByStatus(PackageStatus status);
     Optional<PackageDelivery> findByTrackingCode(String trackingCode);
+
+    @Query("""
+            select new com.example.sdt.service.TrackingView(p.trackingCode, p.status, p.assignedAt, p.deliveredAt)
+            from PackageDelivery p where p.trackingCode = :trackingCode
+            """)
+    Optional<TrackingView> findTrackingView(String trackingCode);
     boolean existsByTrackingCode(String trackingCode);
     Page<PackageDelivery> findBySenderId(Long senderId, Pageable pageable);
     long countBySenderId(Long senderId);
-    List<PackageDelivery> findTop5BySenderIdOrderByIdDesc(Long senderId);
+
+    @Query("""
+            select new com.example.sdt.service.SupportPackageLine(p.id, p.trackingCode, p.status, p.pickupAddress, p.deliveryAddress)
+            from PackageDelivery p where p.sender.id = :senderId order by p.id desc
+            """)
+    List<SupportPackageLine> findSupportLines(Long senderId, Limit limit);
+
 }
\ No newline at end of file
@@ -1,18 +1,20 @@
 package com.example.sdt.security;
 
 import com.example.sdt.domain.Customer;
+import com.example.sdt.domain.Emails;
 import com.example.sdt.repo.CourierRepository;
 import com.example.sdt.repo.CustomerRepository;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
 
@@ -21,15 +23,22 @@ import java.util.Objects;
 public class AuthController {
 
     private final UserRepository userRepo;
-    private final PasswordEncoder encoder;
+    private final PasswordHasher hasher;
     private final JwtService jwt;
     private final CourierRepository courierRepo;
     private final CustomerRepository customerRepo;
-
-    public AuthController(UserRepository userRepo, PasswordEncoder encoder, JwtService jwt,
-                          CourierRepository courierRepo, CustomerRepository customerRepo) {
-        this.userRepo = userRepo; this.encoder = encoder; this.jwt = jwt;
-        this.courierRepo = courierRepo; this.customerRepo = customerRepo;
+    private final TransactionTemplate tx;
+    private final RefreshTokenService refreshTokens;
+    private final UserStateCache users;
+    private final Duration accessTtl;
+
+    public AuthController(UserRepository userRepo, PasswordHasher hasher, JwtService jwt,
+                          CourierRepository courierRepo, CustomerRepository customerRepo, TransactionTemplate tx,
+                          RefreshTokenService refreshTokens, UserStateCache users,
+                          @Value("${app.jwt.access-ttl:15m}") Duration accessTtl) {
+        this.userRepo = userRepo; this.hasher = hasher; this.jwt = jwt;
+        this.courierRepo = courierRepo; this.customerRepo = customerRepo; this.tx = tx;
+        this.refreshTokens = refreshTokens; this.users = users; this.accessTtl = accessTtl;
     }
 
     public record RegisterRequest(
@@ -44,10 +53,11 @@ public class AuthController {
 
     public record LoginRequest(String email, String password) {}
 
+    public record RefreshRequest(String refreshToken) {}
+
     @PostMapping("/register")
-    @Transactional
     public ResponseEntity<?> register(@RequestBody @Valid RegisterRequest body) {
-        String email = Objects.toString(body.email(), "").trim().toLowerCase();
+        String email = Objects.toString(Emails.normalize(body.email()), "");
         String pass  = Objects.toString(body.password(), "");
         if (email.isBlank() || pass.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("message","Email & password required"));
@@ -56,6 +66,12 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message","Email already registered"));
         }
 
+        // hash-ul se calculeaza inainte de tranzactie, ca sa nu tina o conexiune ocupata ~100 ms
+        String hash = hasher.encode(pass);
+        return tx.execute(status -> createUser(body, email, hash));
+    }
+
+    private ResponseEntity<?> createUser(RegisterRequest body, String email, String passwordHash) {
         var courierOpt = courierRepo.findByEmail(email);
         Role role;
         Long courierId = null, customerId = null;
@@ -64,7 +80,7 @@ public class AuthController {
             role = Role.COURIER;
             courierId = courierOpt.get().getId();
         } else {
-            Customer existingCustomer = customerRepo.findFirstByEmailIgnoreCase(email).orElse(null);
+            Customer existingCustomer = customerRepo.findByEmail(email).orElse(null);
             if (existingCustomer == null) {
                 Customer c = new Customer();
                 c.setName(Objects.toString(body.name(), "").trim());
@@ -81,41 +97,79 @@ public class AuthController {
 
         User user = new User();
         user.setEmail(email);
-        user.setPasswordHash(encoder.encode(pass));
+        user.setPasswordHash(passwordHash);
         user.setRole(role);
         user.setCourierId(courierId);
         user.setCustomerId(customerId);
-        userRepo.save(user);
+        user = userRepo.save(user);
 
-        var response = new java.util.HashMap<String, Object>();
-        response.put("token", jwt.generate(email, Map.of("role", role.name()), 24 * 3600_000L));
-        response.put("role", role.name());
-        response.put("courierId", courierId);
-        response.put("customerId", customerId);
+        var response = accessToken(email, role, courierId, customerId);
+        putRefresh(response, refreshTokens.issue(user.getId(), email));
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest body) {
-        var user = userRepo.findByEmail(Objects.toString(body.email(),"").trim().toLowerCase()).orElse(null);
-        if (user == null || !encoder.matches(body.password(), user.getPasswordHash())) {
+        hasher.ensureCapacity();
+        var user = userRepo.findByEmail(Objects.toString(Emails.normalize(body.email()), "")).orElse(null);
+        if (user == null || !hasher.matches(body.password(), user.getPasswordHash())) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message","Invalid credentials"));
         }
+        if (hasher.needsUpgrade(user.getPasswordHash())) {
+            Long id = user.getId();
+            String oldHash = user.getPasswordHash();
+            hasher.upgradeLater(body.password(), newHash -> userRepo.replacePasswordHash(id, oldHash, newHash));
+        }
 
-        var claims = new java.util.HashMap<String, Object>();
-        claims.put("role", user.getRole().name());
-        if (user.getCourierId() != null)  claims.put("courierId", user.getCourierId());
-        if (user.getCustomerId() != null) claims.put("customerId", user.getCustomerId());
+        var response = accessToken(user.getEmail(), user.getRole(), user.getCourierId(), user.getCustomerId());
+        putRefresh(response, refreshTokens.issue(user.getId(), user.getEmail()));
+        return ResponseEntity.ok(response);
+    }
 
-        String token = jwt.generate(user.getEmail(), claims, 24 * 3600_000L);
+    // token de acces nou fara parola: refresh tokenul primit e consumat si inlocuit (rotatie);
+    // userul vine din UserStateCache, deci de obicei nicio interogare pe app_user
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest body) {
+        var rotated = body.refreshToken() == null ? null : refreshTokens.rotate(body.refreshToken());
+        if (rotated == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message","Invalid refresh token"));
+        }
+        AuthenticatedUser user = users.get(rotated.owner().email());
+        if (user == null || !user.userId().equals(rotated.owner().userId())) {
+            // userul a fost sters sau si-a schimbat emailul
+            refreshTokens.revoke(rotated.next().token());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message","Invalid refresh token"));
+        }
+        var response = accessToken(user.email(), user.role(), user.courierId(), user.customerId());
+        putRefresh(response, rotated.next());
+        return ResponseEntity.ok(response);
+    }
+
+    // revoca sesiunea (familia de refresh tokenuri); tokenul de acces expira singur
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshRequest body) {
+        if (body.refreshToken() != null) refreshTokens.revoke(body.refreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    private java.util.HashMap<String, Object> accessToken(String email, Role role, Long courierId, Long customerId) {
+        var claims = new java.util.HashMap<String, Object>();
+        claims.put("role", role.name());
+        if (courierId != null)  claims.put("courierId", courierId);
+        if (customerId != null) claims.put("customerId", customerId);
 
         var response = new java.util.HashMap<String, Object>();
-        response.put("token", token);
-        response.put("role", user.getRole().name());
-        response.put("courierId", user.getCourierId());
-        response.put("customerId", user.getCustomerId());
+        response.put("token", jwt.generate(email, claims, accessTtl.toMillis()));
+        response.put("role", role.name());
+        response.put("courierId", courierId);
+        response.put("customerId", customerId);
+        return response;
+    }
 
-        return ResponseEntity.ok(response);
+    private void putRefresh(Map<String, Object> response, RefreshTokenService.Issued refresh) {
+        response.put("expiresIn", accessTtl.toSeconds());
+        response.put("refreshToken", refresh.token());
+        response.put("refreshExpiresAt", refresh.expiresAt());
     }
 }
@@ -0,0 +1,13 @@
+package com.example.sdt.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// principalul pus in SecurityContext de JwtAuthFilter; getName() ramane email-ul
+public record AuthenticatedUser(Long userId, String email, Role role, Long courierId, Long customerId)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
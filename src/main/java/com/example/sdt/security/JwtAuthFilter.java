@@ -1,5 +1,6 @@
 package com.example.sdt.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -12,10 +13,10 @@ import java.util.List;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserRepository userRepo;
+    private final UserStateCache users;
 
-    public JwtAuthFilter(JwtService jwtService, UserRepository userRepo) {
-        this.jwtService = jwtService; this.userRepo = userRepo;
+    public JwtAuthFilter(JwtService jwtService, UserStateCache users) {
+        this.jwtService = jwtService; this.users = users;
     }
 
     @Override
@@ -25,11 +26,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(h) && h.startsWith("Bearer ")) {
             String token = h.substring(7);
             try {
-                String email = jwtService.getSubject(token);
-                var user = userRepo.findByEmail(email).orElse(null);
+                Claims claims = jwtService.parse(token);
+                // rolul vine din cache (invalidat la schimbari), nu din token, ca un rol
+                // schimbat sa se aplice imediat si pentru tokenurile deja emise
+                var user = users.get(claims.getSubject());
                 if (user != null) {
                     var auth = new UsernamePasswordAuthenticationToken(
-                            email, null, List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+                            user, null, List.of(new SimpleGrantedAuthority("ROLE_" + user.role().name())));
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 }
             } catch (Exception ignored) {}
@@ -0,0 +1,123 @@
+package com.example.sdt.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Hashing de parole (bcrypt, CPU-bound) pe un pool dedicat si marginit: un val de login-uri
+// ocupa cel mult app.auth.hashing.threads nuclee, restul API-ului ramane liber. Peste coada
+// (queue-capacity) sau dupa max-wait, requestul primeste 503 in loc sa astepte.
+@Component
+public class PasswordHasher {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final Duration maxWait;
+    private final Counter rejected;
+    private final Timer hashing;
+
+    public PasswordHasher(PasswordEncoder encoder, MeterRegistry meters,
+                          @Value("${app.auth.hashing.threads:0}") int threads,
+                          @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.auth.hashing.max-wait:2s}") Duration maxWait) {
+        this.encoder = encoder;
+        this.maxWait = maxWait;
+        // implicit jumatate din nuclee
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "pwd-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejected = meters.counter("auth.hashing.rejected");
+        this.hashing = Timer.builder("auth.hashing").publishPercentileHistogram().register(meters);
+        meters.gauge("auth.hashing.queue", pool, p -> p.getQueue().size());
+    }
+
+    // respinge devreme (inainte de citirea userului din baza) cand coada e deja plina
+    public void ensureCapacity() {
+        if (pool.getQueue().remainingCapacity() == 0) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        }
+    }
+
+    public boolean matches(String raw, String hash) {
+        return run(() -> encoder.matches(raw, hash));
+    }
+
+    public String encode(String raw) {
+        return run(() -> encoder.encode(raw));
+    }
+
+    // true daca hash-ul e vechi (fara prefix {id} sau cu cost mai mic decat cel configurat)
+    public boolean needsUpgrade(String hash) {
+        return encoder.upgradeEncoding(hash);
+    }
+
+    // re-hash dupa un login reusit, fara sa intarzie raspunsul; cu pool-ul plin se amana
+    // pentru urmatorul login
+    public void upgradeLater(String raw, Consumer<String> save) {
+        try {
+            pool.execute(() -> {
+                try {
+                    save.accept(hashing.record(() -> encoder.encode(raw)));
+                } catch (RuntimeException e) {
+                    log.warn("Password hash upgrade failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // nu e o eroare: hash-ul vechi ramane valid
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> f;
+        try {
+            f = pool.submit(() -> hashing.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        }
+        try {
+            return f.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false);
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
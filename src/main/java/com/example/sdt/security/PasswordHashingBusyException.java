@@ -0,0 +1,8 @@
+package com.example.sdt.security;
+
+// pool-ul de hashing e plin: requestul e respins imediat in loc sa astepte la coada
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("Too many concurrent logins, retry later");
+    }
+}
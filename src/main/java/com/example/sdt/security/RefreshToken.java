@@ -0,0 +1,46 @@
+package com.example.sdt.security;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Tabela pentru refresh tokenuri; scrierile si citirile trec prin RefreshTokenService (JDBC).
+// Tokenul in clar nu se salveaza: cheia e SHA-256(token), deci o cautare = un lookup pe PK.
+// Toate tokenurile obtinute prin rotatie dintr-un login au acelasi familyId.
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "ix_refresh_token_family", columnList = "family_id"),
+        @Index(name = "ix_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken {
+    @Id
+    @Column(name = "token_hash", length = 43)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 22)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // setat la rotatie; un token folosit a doua oara revoca toata familia
+    @Column(name = "used_at")
+    private Instant usedAt;
+
+    @Column(nullable = false)
+    private boolean revoked;
+
+    public String getTokenHash() { return tokenHash; }
+    public String getFamilyId() { return familyId; }
+    public Long getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public Instant getUsedAt() { return usedAt; }
+    public boolean isRevoked() { return revoked; }
+}
@@ -0,0 +1,123 @@
+package com.example.sdt.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+// Refresh tokenuri opace, cu rotatie: fiecare /refresh consuma tokenul primit si da unul nou
+// din aceeasi familie. Un token deja consumat, prezentat din nou, inseamna ca a fost copiat:
+// se revoca toata familia si clientul trebuie sa se autentifice cu parola.
+// Tokenurile au 256 de biti aleatori, deci SHA-256 ajunge (fara bcrypt) si lookup-ul e pe PK.
+@Service
+public class RefreshTokenService {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    // consuma tokenul doar daca e inca valid; un singur statement, deci doua refresh-uri
+    // simultane cu acelasi token nu pot reusi amandoua
+    private static final String CONSUME_SQL = """
+            update refresh_token set used_at = now()
+             where token_hash = ? and used_at is null and not revoked and expires_at > now()
+            returning user_id, email, family_id
+            """;
+
+    public record Issued(String token, Instant expiresAt) {}
+
+    public record Owner(long userId, String email, String familyId) {}
+
+    public record Rotated(Owner owner, Issued next) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration ttl;
+
+    public RefreshTokenService(JdbcTemplate jdbc, TransactionTemplate tx,
+                               @Value("${app.jwt.refresh-ttl:30d}") Duration ttl) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.ttl = ttl;
+    }
+
+    // familie noua, la login sau register
+    public Issued issue(long userId, String email) {
+        return insert(userId, email, randomId(16));
+    }
+
+    // null daca tokenul e necunoscut, expirat, revocat sau refolosit
+    public Rotated rotate(String token) {
+        String hash = hash(token);
+        return tx.execute(status -> {
+            List<Owner> owner = jdbc.query(CONSUME_SQL,
+                    (rs, i) -> new Owner(rs.getLong(1), rs.getString(2), rs.getString(3)), hash);
+            if (owner.isEmpty()) {
+                revokeIfReused(hash);
+                return null;
+            }
+            Owner o = owner.get(0);
+            return new Rotated(o, insert(o.userId(), o.email(), o.familyId()));
+        });
+    }
+
+    // logout: toata familia tokenului (sesiunea de pe acel dispozitiv)
+    public void revoke(String token) {
+        jdbc.update("""
+                update refresh_token set revoked = true
+                 where family_id = (select family_id from refresh_token where token_hash = ?)
+                """, hash(token));
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh-cleanup-cron:0 30 3 * * *}")
+    public void deleteExpired() {
+        int n = jdbc.update("delete from refresh_token where expires_at < now()");
+        if (n > 0) log.info("Deleted {} expired refresh tokens", n);
+    }
+
+    private void revokeIfReused(String hash) {
+        int n = jdbc.update("""
+                update refresh_token set revoked = true
+                 where family_id = (select family_id from refresh_token where token_hash = ? and used_at is not null)
+                   and not revoked
+                """, hash);
+        if (n > 0) log.warn("Refresh token reused, revoked {} tokens of its family", n);
+    }
+
+    private Issued insert(long userId, String email, String familyId) {
+        String token = randomId(32);
+        Instant expiresAt = Instant.now().plus(ttl);
+        jdbc.update("""
+                insert into refresh_token (token_hash, family_id, user_id, email, expires_at, revoked)
+                values (?, ?, ?, ?, ?, false)
+                """, hash(token), familyId, userId, email, Timestamp.from(expiresAt));
+        return new Issued(token, expiresAt);
+    }
+
+    private String randomId(int bytes) {
+        byte[] b = new byte[bytes];
+        random.nextBytes(b);
+        return B64.encodeToString(b);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return B64.encodeToString(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.sdt.security;
 
+import com.example.sdt.domain.Emails;
+import com.example.sdt.domain.PooledSequence;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(UserCacheInvalidator.class)
+// emailul se scrie normalizat (Emails); unicitatea fara diferente de litere o da ux_app_user_email_lower
 @Table(name = "app_user", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("app_user_seq")
     private Long id;
 
     @Column(nullable = false,unique = true) private String email;
@@ -31,7 +35,7 @@ public class User {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        this.email = Emails.normalize(email);
     }
 
     public String getPasswordHash() {
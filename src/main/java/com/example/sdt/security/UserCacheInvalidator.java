@@ -0,0 +1,39 @@
+package com.example.sdt.security;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Entity listener pe User; cache-ul e luat lazy ca sa nu depinda de EntityManagerFactory
+// in timp ce aceasta inca se construieste. Callback-urile JPA vin la flush, inainte de commit:
+// invalidam abia dupa commit, altfel un request concurent ar reincarca randul vechi in cache.
+@Component
+public class UserCacheInvalidator {
+    private final ObjectProvider<UserStateCache> cache;
+
+    public UserCacheInvalidator(ObjectProvider<UserStateCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onChange(User user) {
+        Long userId = user.getId();
+        String email = user.getEmail();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.getObject().invalidate(userId, email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.getObject().invalidate(userId, email);
+            }
+        });
+    }
+}
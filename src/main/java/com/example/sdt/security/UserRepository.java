@@ -1,9 +1,20 @@
 package com.example.sdt.security;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // fara diferente de litere, pe ux_app_user_email_lower
+    @Query("select u from User u where lower(u.email) = lower(:email)")
     Optional<User> findByEmail(String email);
+
+    // doar daca parola nu s-a schimbat intre timp
+    @Transactional
+    @Modifying
+    @Query("update User u set u.passwordHash = :newHash where u.id = :id and u.passwordHash = :oldHash")
+    int replacePasswordHash(Long id, String oldHash, String newHash);
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.sdt.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+// Starea userilor autentificati (rol, courierId, customerId), cheie = subject-ul din JWT.
+// Invalidata de UserCacheInvalidator dupa commit-ul oricarui insert/update/delete pe app_user;
+// emailurile sub care e tinut fiecare id (si cel vechi, dupa o schimbare de email) sunt in
+// emailsById, ca invalidarea sa nu parcurga tot cache-ul. Load-ul din baza
+// ruleaza pe un fir virtual separat, nu in monitorul din ConcurrentHashMap (vezi TrackingCache).
+@Component
+public class UserStateCache {
+    private final AsyncLoadingCache<String, AuthenticatedUser> cache;
+    private final Map<Long, Set<String>> emailsById = new ConcurrentHashMap<>();
+
+    public UserStateCache(UserRepository userRepo, MeterRegistry meters, ExecutorService cacheLoaders,
+                          @Value("${app.auth.user-cache.max-size:10000}") long maxSize,
+                          @Value("${app.auth.user-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .executor(cacheLoaders)
+                .removalListener(this::forget)
+                .buildAsync(email -> userRepo.findByEmail(email)
+                        .map(u -> {
+                            emailsById.computeIfAbsent(u.getId(), id -> ConcurrentHashMap.newKeySet()).add(email);
+                            return new AuthenticatedUser(u.getId(), u.getEmail(), u.getRole(), u.getCourierId(), u.getCustomerId());
+                        })
+                        .orElse(null));
+        CaffeineCacheMetrics.monitor(meters, cache, "auth.users");
+    }
+
+    // null daca userul nu (mai) exista
+    public AuthenticatedUser get(String email) {
+        return cache.get(email).join();
+    }
+
+    public void invalidate(Long userId, String email) {
+        if (email != null) cache.synchronous().invalidate(email);
+        // emailul se poate schimba, deci scoatem si intrarile vechi ale aceluiasi id
+        Set<String> emails = userId == null ? null : emailsById.remove(userId);
+        if (emails != null) cache.synchronous().invalidateAll(emails);
+    }
+
+    // intrarea a iesit din cache; emailul ramane in emailsById daca intre timp s-a reincarcat
+    private void forget(String email, AuthenticatedUser user, RemovalCause cause) {
+        if (email == null || user == null) return;
+        emailsById.computeIfPresent(user.userId(), (id, emails) -> {
+            if (!cache.asMap().containsKey(email)) emails.remove(email);
+            return emails.isEmpty() ? null : emails;
+        });
+    }
+}
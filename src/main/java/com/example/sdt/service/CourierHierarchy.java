@@ -0,0 +1,76 @@
+package com.example.sdt.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ierarhia de manageri, citita cu CTE recursive pe ix_couriers_manager_id: cate un index
+// scan per nivel, nu cate o interogare per curier. CYCLE opreste parcurgerea daca datele
+// vechi contin deja un ciclu; cele noi sunt respinse de wouldCreateCycle.
+@Component
+public class CourierHierarchy {
+    private static final String TEAM_SQL = """
+            with recursive team as (
+                select id, name, email, manager_id, 1 as depth from couriers where manager_id = ?
+                union all
+                select c.id, c.name, c.email, c.manager_id, t.depth + 1
+                  from couriers c join team t on c.manager_id = t.id
+                 where t.depth < ?
+            ) cycle id set is_cycle using path
+            select id, name, email, manager_id, depth from team where not is_cycle order by depth, id
+            """;
+
+    // lantul de manageri de deasupra lui managerId; scurt, oricat de mare ar fi organizatia
+    private static final String IS_ANCESTOR_SQL = """
+            with recursive up as (
+                select id, manager_id from couriers where id = ?
+                union all
+                select c.id, c.manager_id from couriers c join up on c.id = up.manager_id
+            ) cycle id set is_cycle using path
+            select exists (select 1 from up where id = ?)
+            """;
+
+    // aceeasi urcare, pornita din mai multi curieri deodata (pentru import)
+    private static final String ANCESTORS_SQL = """
+            with recursive up as (
+                select id, manager_id from couriers where id = any(?)
+                union
+                select c.id, c.manager_id from couriers c join up on c.id = up.manager_id
+            )
+            select id, manager_id from up
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public CourierHierarchy(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // toti subordonatii (directi si indirecti) pana la adancimea data
+    public List<CourierTeamMember> team(long managerId, int maxDepth) {
+        return jdbc.query(TEAM_SQL, (rs, i) -> new CourierTeamMember(rs.getLong(1), rs.getString(2),
+                rs.getString(3), rs.getLong(4), rs.getInt(5)), managerId, maxDepth);
+    }
+
+    // true daca managerId e chiar curierul sau unul dintre subordonatii lui
+    public boolean wouldCreateCycle(long courierId, long managerId) {
+        if (courierId == managerId) return true;
+        return Boolean.TRUE.equals(jdbc.queryForObject(IS_ANCESTOR_SQL, Boolean.class, managerId, courierId));
+    }
+
+    // curier -> manager pentru ids si toti managerii de deasupra lor; UNION (nu UNION ALL)
+    // opreste urcarea si pe un ciclu deja existent in date
+    public Map<Long, Long> managersAbove(Collection<Long> ids) {
+        Map<Long, Long> parents = new HashMap<>();
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(ANCESTORS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, rs -> { parents.put(rs.getLong(1), (Long) rs.getObject(2)); });
+        return parents;
+    }
+}
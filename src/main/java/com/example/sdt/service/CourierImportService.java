@@ -0,0 +1,463 @@
+package com.example.sdt.service;
+
+import com.example.sdt.config.EntityCacheConfig;
+import com.example.sdt.domain.Courier;
+import com.example.sdt.domain.Emails;
+import com.example.sdt.repo.CourierRepository;
+import com.example.sdt.web.dto.CourierImportDto;
+import com.example.sdt.web.dto.CourierImportDto.Row;
+import com.example.sdt.web.dto.CourierImportDto.RowResult;
+import com.example.sdt.web.dto.CourierImportDto.RowStatus;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Import de curieri in masa (CSV cu header sau NDJSON), citit ca stream. Pe fiecare batch:
+// managerii se rezolva cu cate o interogare (dupa email si dupa id), apoi toate randurile intra
+// printr-un singur INSERT ... ON CONFLICT (email) DO UPDATE, intr-o tranzactie per batch.
+// Rezultatele per rand se dau mai departe dupa fiecare commit, nu la final.
+@Service
+public class CourierImportService {
+    private static final Logger log = LoggerFactory.getLogger(CourierImportService.class);
+
+    // xmax = 0 doar pentru randurile inserate acum; la un update e id-ul tranzactiei curente
+    private static final String UPSERT_SQL = """
+            insert into couriers (id, name, email, last_lat, last_lng, manager_id)
+            select * from unnest(?::bigint[], ?::text[], ?::text[], ?::float8[], ?::float8[], ?::bigint[])
+            on conflict (email) do update
+               set name = excluded.name,
+                   last_lat = coalesce(excluded.last_lat, couriers.last_lat),
+                   last_lng = coalesce(excluded.last_lng, couriers.last_lng),
+                   manager_id = coalesce(excluded.manager_id, couriers.manager_id)
+            returning id, email, last_lat, last_lng, xmax = 0
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final CourierRepository courierRepo;
+    private final CourierLocationStore locations;
+    private final SequenceIdAllocator ids;
+    private final Validator validator;
+    private final ObjectReader reader;
+    private final EntityManagerFactory emf;
+    private final CourierHierarchy hierarchy;
+
+    @Value("${app.couriers.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.couriers.import.max-rows:50000}")
+    private int maxRows;
+
+    public CourierImportService(JdbcTemplate jdbc, TransactionTemplate tx, CourierRepository courierRepo,
+                                CourierLocationStore locations, SequenceIdAllocator ids, Validator validator,
+                                ObjectMapper mapper, EntityManagerFactory emf, CourierHierarchy hierarchy) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.courierRepo = courierRepo;
+        this.locations = locations;
+        this.ids = ids;
+        this.validator = validator;
+        this.reader = mapper.readerFor(Row.class);
+        this.emf = emf;
+        this.hierarchy = hierarchy;
+    }
+
+    private record Pending(int index, Row row) {}
+
+    private record Upserted(long id, String email, Double lat, Double lng, boolean inserted) {}
+
+    // sursa de randuri: null la final; MalformedRow = doar randul curent e invalid
+    private interface RowSource extends AutoCloseable {
+        Row next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class MalformedRow extends RuntimeException {
+        MalformedRow(String message) {
+            super(message);
+        }
+    }
+
+    private class State {
+        final Consumer<List<RowResult>> sink;
+        final CourierImportDto.Summary summary = new CourierImportDto.Summary();
+        // email -> id pentru curierii deja vazuti in baza sau importati in request-ul curent
+        final Map<String, Long> knownEmails = new HashMap<>();
+        final Set<Long> knownIds = new HashSet<>();
+        final List<Pending> chunk = new ArrayList<>(batchSize);
+        final Set<String> chunkEmails = new HashSet<>();
+
+        State(Consumer<List<RowResult>> sink) {
+            this.sink = sink;
+        }
+
+        void emit(List<RowResult> results) {
+            for (RowResult r : results) {
+                switch (r.status) {
+                    case CREATED -> summary.created++;
+                    case UPDATED -> summary.updated++;
+                    case REJECTED -> summary.rejected++;
+                }
+            }
+            if (!results.isEmpty()) sink.accept(results);
+        }
+    }
+
+    public CourierImportDto.Summary importCsv(InputStream body, Consumer<List<RowResult>> sink) throws IOException {
+        return run(csvRows(body), sink);
+    }
+
+    public CourierImportDto.Summary importNdjson(InputStream body, Consumer<List<RowResult>> sink) throws IOException {
+        MappingIterator<Row> it = reader.readValues(body);
+        return run(new RowSource() {
+            @Override
+            public Row next() throws IOException {
+                return it.hasNextValue() ? it.nextValue() : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                it.close();
+            }
+        }, sink);
+    }
+
+    private CourierImportDto.Summary run(RowSource rows, Consumer<List<RowResult>> sink) throws IOException {
+        long start = System.nanoTime();
+        State s = new State(sink);
+        try (rows) {
+            int index = 0;
+            while (true) {
+                Row row;
+                try {
+                    row = rows.next();
+                } catch (MalformedRow e) {
+                    s.summary.received++;
+                    s.emit(List.of(new RowResult(index++, RowStatus.REJECTED, null, null, e.getMessage())));
+                    continue;
+                } catch (RuntimeException | IOException e) {
+                    // JSON malformat: parserul nu se mai poate resincroniza
+                    s.summary.received++;
+                    s.emit(List.of(new RowResult(index, RowStatus.REJECTED, null, null, "Malformed row, stopped reading")));
+                    break;
+                }
+                if (row == null) break;
+                s.summary.received++;
+                if (index >= maxRows) {
+                    s.emit(List.of(new RowResult(index, RowStatus.REJECTED, null, null, "Too many rows, limit is " + maxRows)));
+                    break;
+                }
+                String invalid = validate(row);
+                if (invalid != null) {
+                    s.emit(List.of(new RowResult(index++, RowStatus.REJECTED, null, row.email, invalid)));
+                    continue;
+                }
+                // acelasi email de doua ori sau un manager inca necomis: intai se scrie ce e in asteptare
+                if (s.chunkEmails.contains(row.email)
+                        || (row.managerEmail != null && s.chunkEmails.contains(row.managerEmail))) {
+                    flush(s);
+                }
+                s.chunk.add(new Pending(index++, row));
+                s.chunkEmails.add(row.email);
+                if (s.chunk.size() >= batchSize) flush(s);
+            }
+        }
+        flush(s);
+        s.summary.tookMs = (System.nanoTime() - start) / 1_000_000;
+        return s.summary;
+    }
+
+    private String validate(Row row) {
+        if (row == null) return "Empty row";
+        row.name = trim(row.name);
+        row.email = Emails.normalize(row.email);
+        row.managerEmail = Emails.normalize(row.managerEmail);
+        Set<ConstraintViolation<Row>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (row.email.equals(row.managerEmail)) return "Courier cannot be its own manager";
+        if ((row.lastLat == null) != (row.lastLng == null)
+                || (row.lastLat != null && !CourierPosition.isValid(row.lastLat, row.lastLng))) {
+            return "Invalid coordinates";
+        }
+        return null;
+    }
+
+    private void flush(State s) {
+        if (s.chunk.isEmpty()) return;
+        List<Pending> chunk = List.copyOf(s.chunk);
+        s.chunk.clear();
+        s.chunkEmails.clear();
+
+        resolveManagers(chunk, s);
+        List<RowResult> results = new ArrayList<>(chunk.size());
+        List<Pending> accepted = new ArrayList<>(chunk.size());
+        List<Long> managers = new ArrayList<>(chunk.size());
+        for (Pending p : chunk) {
+            Row r = p.row();
+            Long managerId = r.managerId;
+            if (r.managerEmail != null) {
+                Long byEmail = s.knownEmails.get(r.managerEmail);
+                if (byEmail == null || (managerId != null && !managerId.equals(byEmail))) {
+                    results.add(new RowResult(p.index(), RowStatus.REJECTED, null, r.email, "Manager not found"));
+                    continue;
+                }
+                managerId = byEmail;
+            } else if (managerId != null && !s.knownIds.contains(managerId)) {
+                results.add(new RowResult(p.index(), RowStatus.REJECTED, null, r.email, "Manager not found"));
+                continue;
+            }
+            accepted.add(p);
+            managers.add(managerId);
+        }
+
+        rejectCycles(accepted, managers, s, results);
+        if (!accepted.isEmpty()) {
+            upsert(accepted, managers, s, results);
+        }
+        results.sort((a, b) -> Integer.compare(a.index, b.index));
+        s.emit(results);
+    }
+
+    // Un curier existent care primeste manager: ca la PUT/PATCH, managerul nu poate fi el
+    // insusi sau unul dintre subordonatii lui. Lantul de manageri vine dintr-o singura
+    // interogare pentru toata bucata; muchiile acceptate mai sus in bucata conteaza si ele.
+    private void rejectCycles(List<Pending> accepted, List<Long> managers, State s, List<RowResult> results) {
+        List<Long> seeds = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            if (managers.get(i) != null && s.knownEmails.containsKey(accepted.get(i).row().email)) {
+                seeds.add(managers.get(i));
+            }
+        }
+        if (seeds.isEmpty()) return;
+
+        Map<Long, Long> parents = hierarchy.managersAbove(seeds);
+        Map<Long, Long> proposed = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Long managerId = managers.get(i);
+            Long self = s.knownEmails.get(accepted.get(i).row().email);
+            // un curier nou nu e inca managerul nimanui
+            if (managerId == null || self == null) continue;
+            if (reaches(managerId, self, proposed, parents)) {
+                Pending p = accepted.remove(i);
+                managers.remove(i--);
+                results.add(new RowResult(p.index(), RowStatus.REJECTED, null, p.row().email,
+                        "Manager cannot be the courier or one of its subordinates"));
+            } else {
+                proposed.put(self, managerId);
+            }
+        }
+    }
+
+    private static boolean reaches(long from, long target, Map<Long, Long> proposed, Map<Long, Long> parents) {
+        Set<Long> seen = new HashSet<>();
+        for (Long x = from; x != null && seen.add(x); x = proposed.containsKey(x) ? proposed.get(x) : parents.get(x)) {
+            if (x == target) return true;
+        }
+        return false;
+    }
+
+    // o interogare pentru emailurile necunoscute (de manager si ale curierilor care primesc
+    // manager, pentru verificarea de ciclu), una pentru id-urile necunoscute
+    private void resolveManagers(List<Pending> chunk, State s) {
+        Set<String> emails = new HashSet<>();
+        for (Pending p : chunk) {
+            Row r = p.row();
+            if (r.managerEmail != null) emails.add(r.managerEmail);
+            if (r.managerEmail != null || r.managerId != null) emails.add(r.email);
+        }
+        emails.removeIf(s.knownEmails::containsKey);
+        if (!emails.isEmpty()) {
+            jdbc.query(con -> {
+                var ps = con.prepareStatement("select lower(email), id from couriers where lower(email) = any(?)");
+                ps.setArray(1, con.createArrayOf("text", emails.toArray()));
+                return ps;
+            }, rs -> {
+                s.knownEmails.put(rs.getString(1), rs.getLong(2));
+                s.knownIds.add(rs.getLong(2));
+            });
+        }
+        Set<Long> unknownIds = chunk.stream()
+                .map(p -> p.row().managerId)
+                .filter(id -> id != null && !s.knownIds.contains(id))
+                .collect(Collectors.toSet());
+        if (!unknownIds.isEmpty()) {
+            s.knownIds.addAll(courierRepo.findExistingIds(unknownIds));
+        }
+    }
+
+    private void upsert(List<Pending> accepted, List<Long> managers, State s, List<RowResult> results) {
+        // id-urile pre-alocate raman nefolosite pentru randurile care devin update
+        long[] newIds = ids.nextIds("couriers_seq", accepted.size());
+        int n = accepted.size();
+        Long[] idArr = new Long[n];
+        String[] names = new String[n];
+        String[] emails = new String[n];
+        Double[] lats = new Double[n];
+        Double[] lngs = new Double[n];
+        for (int i = 0; i < n; i++) {
+            Row r = accepted.get(i).row();
+            idArr[i] = newIds[i];
+            names[i] = r.name;
+            emails[i] = r.email;
+            lats[i] = r.lastLat;
+            lngs[i] = r.lastLng;
+        }
+        List<Upserted> done;
+        try {
+            done = tx.execute(status -> jdbc.query(con -> {
+                var ps = con.prepareStatement(UPSERT_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", idArr));
+                ps.setArray(2, con.createArrayOf("text", names));
+                ps.setArray(3, con.createArrayOf("text", emails));
+                ps.setArray(4, con.createArrayOf("float8", lats));
+                ps.setArray(5, con.createArrayOf("float8", lngs));
+                ps.setArray(6, con.createArrayOf("bigint", managers.toArray()));
+                return ps;
+            }, (rs, i) -> new Upserted(rs.getLong(1), rs.getString(2),
+                    (Double) rs.getObject(3), (Double) rs.getObject(4), rs.getBoolean(5))));
+        } catch (DataAccessException e) {
+            log.warn("Courier import batch of {} rows failed", n, e);
+            for (Pending p : accepted) {
+                results.add(new RowResult(p.index(), RowStatus.REJECTED, null, p.row().email, "Batch upsert failed"));
+            }
+            return;
+        }
+
+        // scrierea a ocolit Hibernate: scoatem din cache-ul de nivel 2 curierii atinsi si
+        // cautarile dupa email (un email nou ar ramane altfel "inexistent" pana la TTL)
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegion(EntityCacheConfig.COURIERS_BY_EMAIL);
+        Map<String, Upserted> byEmail = new HashMap<>();
+        for (Upserted u : done) {
+            emf.getCache().evict(Courier.class, u.id());
+            byEmail.put(u.email(), u);
+            s.knownEmails.put(u.email(), u.id());
+            s.knownIds.add(u.id());
+        }
+        for (Pending p : accepted) {
+            Upserted u = byEmail.get(p.row().email);
+            // pozitia din memorie e mai noua decat baza; se suprascrie doar cand randul aduce coordonate
+            if (u.inserted() || p.row().lastLat != null) locations.sync(u.id(), u.lat(), u.lng());
+            results.add(new RowResult(p.index(), u.inserted() ? RowStatus.CREATED : RowStatus.UPDATED,
+                    u.id(), u.email(), null));
+        }
+    }
+
+    // --- CSV: prima linie e header-ul (name,email,managerId,managerEmail,lastLat,lastLng,
+    // in orice ordine); un rand pe linie, campurile pot fi intre ghilimele ---
+
+    private RowSource csvRows(InputStream body) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String headerLine = in.readLine();
+        List<String> header = headerLine == null ? List.of() : splitCsv(headerLine.replace("\uFEFF", "")).stream()
+                .map(h -> h.trim().replace("_", "").toLowerCase(Locale.ROOT))
+                .toList();
+        return new RowSource() {
+            @Override
+            public Row next() throws IOException {
+                String line;
+                do {
+                    line = in.readLine();
+                    if (line == null) return null;
+                } while (line.isBlank());
+                List<String> values = splitCsv(line);
+                Row row = new Row();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    String v = values.get(i).trim();
+                    if (v.isEmpty()) continue;
+                    switch (header.get(i)) {
+                        case "name" -> row.name = v;
+                        case "email" -> row.email = v;
+                        case "managerid" -> row.managerId = parse(v, "managerId", Long::valueOf);
+                        case "manageremail" -> row.managerEmail = v;
+                        case "lastlat" -> row.lastLat = parse(v, "lastLat", Double::valueOf);
+                        case "lastlng" -> row.lastLng = parse(v, "lastLng", Double::valueOf);
+                        default -> { }
+                    }
+                }
+                return row;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new MalformedRow("Invalid number in column " + column);
+        }
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        if (quoted) throw new MalformedRow("Unterminated quote");
+        out.add(cur.toString());
+        return out;
+    }
+
+    private static String trim(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.sdt.service;
+
+public record CourierLoad(long courierId, long pending) {}
@@ -0,0 +1,185 @@
+package com.example.sdt.service;
+
+import jakarta.annotation.PreDestroy;
+import com.example.sdt.repo.CourierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ultima pozitie cunoscuta a fiecarui curier, tinuta in memorie. Ping-urile doar
+// inlocuiesc valoarea din map (CAS pe intrare) si marcheaza curierul ca "dirty";
+// flush-ul periodic scrie in couriers doar ultima pozitie, intr-un singur batch.
+// Flush-ul nu scoate curierii din cache-ul de nivel 2: pozitia se citeste de aici (CourierController
+// o pune peste entitate), iar last_lat/last_lng din entitatea din cache raman doar ca rezerva.
+// Curierii creati sau stersi prin alta instanta: un ping de la un id necunoscut se verifica in
+// repository (cache-ul de nivel 2), iar lista de id-uri se reincarca periodic din baza.
+@Component
+public class CourierLocationStore implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(CourierLocationStore.class);
+
+    private final JdbcTemplate jdbc;
+    private final CourierSpatialIndex index;
+    private final CourierRepository courierRepo;
+    private final Set<Long> known = ConcurrentHashMap.newKeySet();
+    private final Map<Long, CourierPosition> latest = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public CourierLocationStore(JdbcTemplate jdbc, CourierSpatialIndex index, CourierRepository courierRepo) {
+        this.jdbc = jdbc;
+        this.index = index;
+        this.courierRepo = courierRepo;
+    }
+
+    // inainte sa porneasca serverul web: altfel ping-urile venite la pornire ar fi respinse
+    // ca fiind de la curieri necunoscuti
+    @Override
+    public void afterSingletonsInstantiated() {
+        Instant now = Instant.now();
+        jdbc.query("select id, last_lat, last_lng from couriers", rs -> {
+            long id = rs.getLong("id");
+            known.add(id);
+            double lat = rs.getDouble("last_lat");
+            boolean hasLat = !rs.wasNull();
+            double lng = rs.getDouble("last_lng");
+            if (hasLat && !rs.wasNull()) {
+                CourierPosition p = new CourierPosition(id, lat, lng, now);
+                latest.put(id, p);
+                index.put(p);
+            }
+        });
+        log.info("Loaded {} couriers, {} with a known position", known.size(), latest.size());
+    }
+
+    // false daca curierul nu exista sau ping-ul e invalid; ping-urile mai vechi decat
+    // pozitia curenta sunt acceptate dar ignorate (pot veni in alta ordine din batch-uri).
+    // Ora din viitor (ceas de telefon decalat) se taie la ora serverului, altfel un singur
+    // ping ar bloca pozitia pana cand ceasul serverului o ajunge din urma
+    public boolean update(long courierId, Double lat, Double lng, Instant at) {
+        if (!CourierPosition.isValid(lat, lng) || !isKnown(courierId)) {
+            return false;
+        }
+        Instant now = Instant.now();
+        CourierPosition next = new CourierPosition(courierId, lat, lng, at == null || at.isAfter(now) ? now : at);
+        while (true) {
+            CourierPosition cur = latest.get(courierId);
+            if (cur != null && cur.at().isAfter(next.at())) {
+                return true;
+            }
+            boolean swapped = cur == null
+                    ? latest.putIfAbsent(courierId, next) == null
+                    : latest.replace(courierId, cur, next);
+            if (swapped) break;
+        }
+        index.put(next);
+        dirty.add(courierId);
+        return true;
+    }
+
+    private boolean isKnown(long courierId) {
+        if (known.contains(courierId)) return true;
+        if (courierRepo.findById(courierId).isEmpty()) return false;
+        known.add(courierId);
+        return true;
+    }
+
+    // Id-urile vazute inainte de interogare au fost adaugate dupa commit, deci daca lipsesc din
+    // rezultat curierul a fost sters; cele adaugate intre timp nu se ating.
+    @Scheduled(initialDelayString = "${app.locations.reload-interval-ms:60000}",
+            fixedDelayString = "${app.locations.reload-interval-ms:60000}")
+    public void reloadIds() {
+        Set<Long> before = Set.copyOf(known);
+        Set<Long> ids = new HashSet<>();
+        jdbc.query("select id from couriers", rs -> { ids.add(rs.getLong(1)); });
+        int added = 0, removed = 0;
+        for (Long id : ids) {
+            if (known.add(id)) added++;
+        }
+        for (Long id : before) {
+            if (!ids.contains(id)) {
+                remove(id);
+                removed++;
+            }
+        }
+        if (added > 0 || removed > 0) {
+            log.info("Courier ids reloaded: {} added, {} removed", added, removed);
+        }
+    }
+
+    public CourierPosition get(long courierId) {
+        return latest.get(courierId);
+    }
+
+    // toti curierii existenti, cu sau fara pozitie cunoscuta
+    public Set<Long> courierIds() {
+        return Collections.unmodifiableSet(known);
+    }
+
+    public Collection<CourierPosition> all() {
+        return latest.values();
+    }
+
+    // apelate dupa create/PUT/import si delete, cu pozitia trimisa de client (nu cu ce e in
+    // baza, care poate fi mai veche decat memoria)
+    public void sync(long courierId, Double lat, Double lng) {
+        known.add(courierId);
+        if (CourierPosition.isValid(lat, lng)) {
+            CourierPosition p = new CourierPosition(courierId, lat, lng, Instant.now());
+            latest.put(courierId, p);
+            index.put(p);
+        } else {
+            latest.remove(courierId);
+            index.remove(courierId);
+        }
+    }
+
+    public void remove(long courierId) {
+        known.remove(courierId);
+        latest.remove(courierId);
+        index.remove(courierId);
+        dirty.remove(courierId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.locations.flush-interval-ms:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) return;
+        List<CourierPosition> batch = new ArrayList<>();
+        for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+            Long id = it.next();
+            // scoatem inainte de citire: un ping care vine acum il marcheaza din nou
+            it.remove();
+            CourierPosition p = latest.get(id);
+            if (p != null) batch.add(p);
+        }
+        try {
+            jdbc.batchUpdate("update couriers set last_lat = ?, last_lng = ? where id = ?", batch, batch.size(),
+                    (ps, p) -> {
+                        ps.setDouble(1, p.lat());
+                        ps.setDouble(2, p.lng());
+                        ps.setLong(3, p.courierId());
+                    });
+        } catch (RuntimeException e) {
+            // reincercam la urmatorul flush
+            batch.forEach(p -> dirty.add(p.courierId()));
+            log.warn("Courier location flush of {} rows failed", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
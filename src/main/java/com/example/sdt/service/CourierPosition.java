@@ -0,0 +1,12 @@
+package com.example.sdt.service;
+
+import java.time.Instant;
+
+public record CourierPosition(long courierId, double lat, double lng, Instant at) {
+
+    public static boolean isValid(Double lat, Double lng) {
+        return lat != null && lng != null
+                && lat >= -90 && lat <= 90
+                && lng >= -180 && lng <= 180;
+    }
+}
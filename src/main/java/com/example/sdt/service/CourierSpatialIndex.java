@@ -0,0 +1,140 @@
+package com.example.sdt.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Grila de celule de cellDeg x cellDeg grade peste pozitiile curierilor. Cautarea porneste
+// din celula punctului si se extinde in inele pana cand niciun curier din afara inelelor
+// scanate nu mai poate fi mai aproape decat al k-lea gasit (sau decat raza ceruta).
+@Component
+public class CourierSpatialIndex {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double cellDeg;
+    private final int cols;
+    private final int rows;
+    private final Map<Long, CourierPosition> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, CourierPosition>> cells = new ConcurrentHashMap<>();
+
+    public CourierSpatialIndex(@Value("${app.locations.index-cell-deg:0.05}") double cellDeg) {
+        if (cellDeg <= 0 || cellDeg > 10) throw new IllegalArgumentException("app.locations.index-cell-deg out of range");
+        this.cellDeg = cellDeg;
+        this.cols = (int) Math.ceil(360 / cellDeg);
+        this.rows = (int) Math.ceil(180 / cellDeg);
+    }
+
+    // mutarea intre celule se face in compute, deci e atomica per curier; la update-uri
+    // concurente castiga pozitia cea mai noua
+    public void put(CourierPosition p) {
+        positions.compute(p.courierId(), (id, old) -> {
+            if (old != null && old.at().isAfter(p.at())) return old;
+            if (old != null) removeFromCell(old);
+            // tot prin compute, ca sa nu scriem intr-o celula pe care removeFromCell tocmai a scos-o
+            cells.compute(cellKey(row(p.lat()), col(p.lng())), (key, cell) -> {
+                if (cell == null) cell = new ConcurrentHashMap<>();
+                cell.put(id, p);
+                return cell;
+            });
+            return p;
+        });
+    }
+
+    public void remove(long courierId) {
+        positions.computeIfPresent(courierId, (id, old) -> {
+            removeFromCell(old);
+            return null;
+        });
+    }
+
+    private void removeFromCell(CourierPosition p) {
+        cells.computeIfPresent(cellKey(row(p.lat()), col(p.lng())), (k, cell) -> {
+            cell.remove(p.courierId());
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    public List<NearbyCourier> nearest(double lat, double lng, int k, Double radiusKm) {
+        double maxKm = radiusKm == null ? Double.MAX_VALUE : radiusKm;
+        // max-heap pe distanta, pastreaza cei mai apropiati k
+        PriorityQueue<NearbyCourier> best = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyCourier::distanceKm).reversed());
+        int r0 = row(lat), c0 = col(lng);
+
+        for (int ring = 0; ; ring++) {
+            long side = 2L * ring + 1;
+            // daca patratul ar avea mult mai multe celule decat cele ocupate, e mai ieftin sa le luam pe toate
+            if (side * side > 4L * cells.size() || ring > rows) {
+                best.clear();
+                cells.values().forEach(cell -> offer(cell, lat, lng, k, maxKm, best));
+                break;
+            }
+            for (int dr = -ring; dr <= ring; dr++) {
+                int r = r0 + dr;
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = Math.abs(dr) == ring;
+                for (int dc = -ring; dc <= ring; dc += edgeRow ? 1 : 2 * ring) {
+                    Map<Long, CourierPosition> cell = cells.get(cellKey(r, Math.floorMod(c0 + dc, cols)));
+                    if (cell != null) offer(cell, lat, lng, k, maxKm, best);
+                    if (ring == 0) break;
+                }
+            }
+            double outside = minDistanceOutsideKm(lat, ring);
+            if (outside > maxKm || (best.size() == k && best.peek().distanceKm() <= outside)) break;
+        }
+
+        List<NearbyCourier> out = new ArrayList<>(best);
+        out.sort(Comparator.comparingDouble(NearbyCourier::distanceKm));
+        return out;
+    }
+
+    private void offer(Map<Long, CourierPosition> cell, double lat, double lng, int k, double maxKm,
+                       PriorityQueue<NearbyCourier> best) {
+        for (CourierPosition p : cell.values()) {
+            double d = distanceKm(lat, lng, p.lat(), p.lng());
+            if (d > maxKm) continue;
+            if (best.size() < k) {
+                best.add(new NearbyCourier(p.courierId(), p.lat(), p.lng(), d));
+            } else if (d < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new NearbyCourier(p.courierId(), p.lat(), p.lng(), d));
+            }
+        }
+    }
+
+    // Orice punct din afara inelelor 0..ring difera cu cel putin ring*cellDeg in latitudine
+    // sau in longitudine. Pentru longitudine, din haversine: d >= 2*asin(cos(latMax)*sin(dLng/2)).
+    private double minDistanceOutsideKm(double lat, int ring) {
+        double delta = Math.toRadians(ring * cellDeg);
+        double byLat = delta * EARTH_RADIUS_KM;
+        double latMax = Math.toRadians(Math.min(90, Math.abs(lat) + (ring + 1) * cellDeg));
+        double byLng = 2 * Math.asin(Math.min(1, Math.cos(latMax) * Math.sin(Math.min(Math.PI, delta) / 2))) * EARTH_RADIUS_KM;
+        return Math.min(byLat, byLng);
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, (int) Math.floor((lat + 90) / cellDeg));
+    }
+
+    private int col(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / cellDeg), cols);
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.sdt.service;
+
+// depth = 1 pentru subordonatii directi, 2 pentru subordonatii lor etc.
+public record CourierTeamMember(long id, String name, String email, long managerId, int depth) {}
@@ -0,0 +1,108 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Numarul de colete PENDING per curier, tinut in memorie si ajustat dupa commit din
+// evenimentele de status (creare, alocare, realocare, livrare, bulk, dispatch).
+// Citirea nu atinge tabela packages. Reconcilierea periodica (GROUP BY) corecteaza doar
+// curierii al caror contor nu s-a miscat cat a rulat interogarea; ceilalti raman pe runda urmatoare.
+@Component
+public class CourierWorkload {
+    private static final Logger log = LoggerFactory.getLogger(CourierWorkload.class);
+
+    private final JdbcTemplate jdbc;
+    private final CourierLocationStore couriers;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Counter corrections;
+
+    public CourierWorkload(JdbcTemplate jdbc, CourierLocationStore couriers, MeterRegistry meters) {
+        this.jdbc = jdbc;
+        this.couriers = couriers;
+        this.corrections = meters.counter("couriers.workload.corrections");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PackageStatusEvent e) {
+        if (e.previousStatus() == PackageStatus.PENDING) {
+            Long previous = e.previousCourierId() != null ? e.previousCourierId() : e.courierId();
+            if (previous != null) adder(previous).decrement();
+        }
+        if (e.status() == PackageStatus.PENDING && e.courierId() != null) {
+            adder(e.courierId()).increment();
+        }
+    }
+
+    // toti curierii cunoscuti, cei mai putin incarcati primii
+    public List<CourierLoad> snapshot() {
+        List<CourierLoad> out = new ArrayList<>(couriers.courierIds().size());
+        for (Long id : couriers.courierIds()) {
+            LongAdder a = pending.get(id);
+            out.add(new CourierLoad(id, a == null ? 0 : Math.max(0, a.sum())));
+        }
+        out.sort(Comparator.comparingLong(CourierLoad::pending).thenComparingLong(CourierLoad::courierId));
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.couriers.workload.reconcile-interval-ms:60000}",
+            fixedDelayString = "${app.couriers.workload.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Map<Long, Long> before = current();
+        Map<Long, Long> actual = new HashMap<>();
+        jdbc.query("select courier_id, count(*) from packages where status = 'PENDING' and courier_id is not null group by courier_id",
+                rs -> { actual.put(rs.getLong(1), rs.getLong(2)); });
+        Map<Long, Long> after = current();
+
+        int fixed = 0;
+        for (Long id : union(actual, after)) {
+            long now = after.getOrDefault(id, 0L);
+            // un eveniment aplicat in timpul interogarii: nu stim de ce parte a snapshot-ului a cazut
+            if (now != before.getOrDefault(id, 0L)) continue;
+            long diff = actual.getOrDefault(id, 0L) - now;
+            if (diff != 0) {
+                adder(id).add(diff);
+                fixed++;
+            }
+        }
+        // curieri stersi
+        pending.keySet().removeIf(id -> !actual.containsKey(id) && !couriers.courierIds().contains(id));
+        if (fixed > 0) {
+            corrections.increment(fixed);
+            log.info("Workload reconcile corrected {} couriers", fixed);
+        }
+    }
+
+    private LongAdder adder(long courierId) {
+        return pending.computeIfAbsent(courierId, id -> new LongAdder());
+    }
+
+    private Map<Long, Long> current() {
+        Map<Long, Long> out = new HashMap<>(pending.size());
+        pending.forEach((id, a) -> out.put(id, a.sum()));
+        return out;
+    }
+
+    private static List<Long> union(Map<Long, Long> a, Map<Long, Long> b) {
+        List<Long> ids = new ArrayList<>(a.keySet());
+        for (Long id : b.keySet()) if (!a.containsKey(id)) ids.add(id);
+        return ids;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Alocare automata a coletelor NEW: le parcurge in bucati (keyset pe id), alege pentru fiecare
+// un curier dupa pozitie si incarcare (numarul de colete PENDING) si aplica toata bucata
+// printr-un singur UPDATE, intr-o tranzactie per bucata. Un colet cu coordonate merge doar la
+// un curier din raza max-radius-km; daca nu e niciunul liber ramane NEW pana la rularea urmatoare.
+@Service
+public class DispatchService {
+    private static final Logger log = LoggerFactory.getLogger(DispatchService.class);
+
+    private static final String ASSIGN_SQL = """
+            update packages p
+               set courier_id = a.courier_id, status = 'PENDING', assigned_at = ?
+              from unnest(?::bigint[], ?::bigint[]) as a(id, courier_id)
+             where p.id = a.id and p.status = 'NEW'
+            returning p.id, p.courier_id, p.tracking_code, p.sender_customer_id
+            """;
+
+    public record DispatchReport(int scanned, int assigned, int unassigned, int chunks,
+                                 long tookMs, double packagesPerSecond) {}
+
+    private record NewPackage(long id, Double lat, Double lng) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final CourierSpatialIndex index;
+    private final ApplicationEventPublisher events;
+    private final PackageEventLog eventLog;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Timer runTimer;
+    private final Counter scannedCounter;
+    private final Counter assignedCounter;
+
+    @Value("${app.dispatch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.dispatch.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${app.dispatch.max-load-per-courier:30}")
+    private int maxLoad;
+
+    @Value("${app.dispatch.nearest-candidates:8}")
+    private int nearestCandidates;
+
+    @Value("${app.dispatch.max-radius-km:30}")
+    private double maxRadiusKm;
+
+    public DispatchService(JdbcTemplate jdbc, TransactionTemplate tx, CourierSpatialIndex index,
+                           ApplicationEventPublisher events, PackageEventLog eventLog, MeterRegistry meters) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.index = index;
+        this.events = events;
+        this.eventLog = eventLog;
+        this.runTimer = meters.timer("dispatch.run");
+        this.scannedCounter = meters.counter("dispatch.packages", "result", "scanned");
+        this.assignedCounter = meters.counter("dispatch.packages", "result", "assigned");
+    }
+
+    @Scheduled(fixedDelayString = "${app.dispatch.interval-ms:60000}")
+    public void scheduledRun() {
+        if (!enabled || running.get()) return;
+        DispatchReport r = run();
+        if (r.scanned() > 0) {
+            log.info("Dispatch: {} scanned, {} assigned in {} ms", r.scanned(), r.assigned(), r.tookMs());
+        }
+    }
+
+    public DispatchReport run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Dispatch already running");
+        }
+        try {
+            return runTimer.record(this::dispatchAll);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private DispatchReport dispatchAll() {
+        long start = System.nanoTime();
+        Map<Long, Integer> load = loadPerCourier();
+        // min-heap (incarcare, id) pentru coletele fara coordonate; intrarile vechi se sar la citire
+        PriorityQueue<long[]> leastLoaded = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        load.forEach((id, n) -> leastLoaded.add(new long[]{n, id}));
+
+        int scanned = 0, assigned = 0, chunks = 0;
+        long lastId = 0;
+        while (true) {
+            List<NewPackage> chunk = jdbc.query(
+                    "select id, pickup_lat, pickup_lng from packages where status = 'NEW' and id > ? order by id limit ?",
+                    (rs, i) -> new NewPackage(rs.getLong(1), (Double) rs.getObject(2), (Double) rs.getObject(3)),
+                    lastId, chunkSize);
+            if (chunk.isEmpty()) break;
+            chunks++;
+            scanned += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).id();
+
+            List<Long> ids = new ArrayList<>(chunk.size());
+            List<Long> couriers = new ArrayList<>(chunk.size());
+            for (NewPackage p : chunk) {
+                // fara coordonate nu conteaza distanta: cel mai putin incarcat
+                Long courierId = p.lat() != null && p.lng() != null
+                        ? nearestWithCapacity(p, load)
+                        : leastLoaded(leastLoaded, load);
+                if (courierId == null) continue;
+                load.merge(courierId, 1, Integer::sum);
+                leastLoaded.add(new long[]{load.get(courierId), courierId});
+                ids.add(p.id());
+                couriers.add(courierId);
+            }
+            if (ids.isEmpty()) continue;
+
+            assigned += apply(ids, couriers, load, leastLoaded);
+        }
+
+        long tookNanos = System.nanoTime() - start;
+        scannedCounter.increment(scanned);
+        assignedCounter.increment(assigned);
+        double perSecond = tookNanos == 0 ? 0 : scanned * 1_000_000_000.0 / tookNanos;
+        return new DispatchReport(scanned, assigned, scanned - assigned, chunks, tookNanos / 1_000_000, perSecond);
+    }
+
+    private Map<Long, Integer> loadPerCourier() {
+        Map<Long, Integer> load = new HashMap<>();
+        jdbc.query("select id from couriers", rs -> { load.put(rs.getLong(1), 0); });
+        jdbc.query("select courier_id, count(*) from packages where status = 'PENDING' and courier_id is not null group by courier_id",
+                rs -> {
+                    long courierId = rs.getLong(1);
+                    int pending = rs.getInt(2);
+                    load.computeIfPresent(courierId, (id, n) -> pending);
+                });
+        return load;
+    }
+
+    // dintre cei mai apropiati curieri sub limita, cel cu distanta ponderata de incarcare minima;
+    // daca toti candidatii sunt plini, cautarea se largeste (de doua ori mai multi) pana la
+    // epuizarea curierilor din raza
+    private Long nearestWithCapacity(NewPackage p, Map<Long, Integer> load) {
+        for (int k = nearestCandidates; ; k *= 2) {
+            List<NearbyCourier> candidates = index.nearest(p.lat(), p.lng(), k, maxRadiusKm);
+            Long best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (NearbyCourier c : candidates) {
+                Integer n = load.get(c.courierId());
+                if (n == null || n >= maxLoad) continue;
+                double score = c.distanceKm() * (1.0 + (double) n / maxLoad);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = c.courierId();
+                }
+            }
+            if (best != null || candidates.size() < k) return best;
+        }
+    }
+
+    private Long leastLoaded(PriorityQueue<long[]> heap, Map<Long, Integer> load) {
+        while (!heap.isEmpty()) {
+            long[] top = heap.peek();
+            Integer current = load.get(top[1]);
+            if (current == null || current != top[0]) {
+                heap.poll();
+                continue;
+            }
+            return current < maxLoad ? top[1] : null;
+        }
+        return null;
+    }
+
+    // un singur UPDATE pentru toata bucata; coletele luate intre timp de altcineva nu mai sunt NEW
+    // si raman neschimbate, iar incarcarea planificata pentru ele se scade la loc
+    private int apply(List<Long> ids, List<Long> couriers, Map<Long, Integer> load, PriorityQueue<long[]> leastLoaded) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<PackageStatusEvent> done = tx.execute(status -> {
+            List<PackageStatusEvent> assigned = jdbc.query(con -> {
+                var ps = con.prepareStatement(ASSIGN_SQL);
+                ps.setTimestamp(1, now);
+                ps.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+                ps.setArray(3, con.createArrayOf("bigint", couriers.toArray()));
+                return ps;
+            }, (rs, i) -> new PackageStatusEvent(rs.getLong(1), rs.getString(3), rs.getLong(4), rs.getLong(2), null,
+                    PackageStatus.NEW, PackageStatus.PENDING, now.toInstant()));
+            assigned.forEach(eventLog::record);
+            return assigned;
+        });
+        int applied = done == null ? 0 : done.size();
+        if (done != null) done.forEach(events::publishEvent);
+        if (applied < ids.size()) {
+            Map<Long, Long> planned = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) planned.put(ids.get(i), couriers.get(i));
+            if (done != null) done.forEach(e -> planned.remove(e.packageId()));
+            for (Long courierId : planned.values()) {
+                leastLoaded.add(new long[]{load.merge(courierId, -1, Integer::sum), courierId});
+            }
+        }
+        return applied;
+    }
+}
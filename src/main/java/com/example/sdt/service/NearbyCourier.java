@@ -0,0 +1,3 @@
+package com.example.sdt.service;
+
+public record NearbyCourier(long courierId, double lat, double lng, double distanceKm) {}
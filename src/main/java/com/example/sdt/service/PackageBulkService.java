@@ -0,0 +1,218 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+import com.example.sdt.repo.CourierRepository;
+import com.example.sdt.repo.CustomerRepository;
+import com.example.sdt.web.dto.PackageBulkDto;
+import com.example.sdt.web.dto.PackageBulkDto.RowResult;
+import com.example.sdt.web.dto.PackageBulkDto.RowStatus;
+import com.example.sdt.web.dto.PackageCreateDto;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Import de colete in masa: citeste un array JSON sau NDJSON ca stream, valideaza si
+// scrie randurile in batch-uri JDBC, cate o tranzactie per batch.
+@Service
+public class PackageBulkService {
+    private static final Logger log = LoggerFactory.getLogger(PackageBulkService.class);
+
+    private static final String INSERT_SQL = """
+            insert into packages (id, tracking_code, status, weight_kg, pickup_address, delivery_address,
+                                  pickup_lat, pickup_lng, courier_id, assigned_at, sender_customer_id)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final CustomerRepository customerRepo;
+    private final CourierRepository courierRepo;
+    private final PackageCreateService packageCreateService;
+    private final SequenceIdAllocator ids;
+    private final Validator validator;
+    private final ObjectReader reader;
+    private final ApplicationEventPublisher events;
+    private final PackageEventLog eventLog;
+
+    @Value("${app.packages.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.packages.bulk.max-rows:100000}")
+    private int maxRows;
+
+    public PackageBulkService(JdbcTemplate jdbc, TransactionTemplate tx, CustomerRepository customerRepo,
+                              CourierRepository courierRepo, PackageCreateService packageCreateService,
+                              SequenceIdAllocator ids, Validator validator, ObjectMapper mapper,
+                              ApplicationEventPublisher events, PackageEventLog eventLog) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.customerRepo = customerRepo;
+        this.courierRepo = courierRepo;
+        this.packageCreateService = packageCreateService;
+        this.ids = ids;
+        this.validator = validator;
+        this.reader = mapper.readerFor(PackageCreateDto.class);
+        this.events = events;
+        this.eventLog = eventLog;
+    }
+
+    private record Row(int index, PackageCreateDto dto) {}
+
+    private record Insert(int index, PackageCreateDto dto, long id, String trackingCode) {}
+
+    public PackageBulkDto.Response ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        PackageBulkDto.Response out = new PackageBulkDto.Response();
+        // id-urile deja confirmate raman valabile pentru tot request-ul
+        Set<Long> knownSenders = new HashSet<>();
+        Set<Long> knownCouriers = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(batchSize);
+
+        // readValues intoarce elementele unui array JSON sau valorile succesive dintr-un NDJSON
+        try (MappingIterator<PackageCreateDto> it = reader.readValues(body)) {
+            int index = 0;
+            while (true) {
+                PackageCreateDto dto;
+                try {
+                    if (!it.hasNextValue()) break;
+                    dto = it.nextValue();
+                } catch (RuntimeException | IOException e) {
+                    // dupa un rand malformat parserul nu se mai poate resincroniza
+                    out.results.add(new RowResult(index, RowStatus.REJECTED, null, null, "Malformed JSON, stopped reading"));
+                    out.received++;
+                    break;
+                }
+                if (index >= maxRows) {
+                    out.results.add(new RowResult(index, RowStatus.REJECTED, null, null, "Too many rows, limit is " + maxRows));
+                    out.received++;
+                    break;
+                }
+                out.received++;
+                String invalid = validate(dto);
+                if (invalid != null) {
+                    out.results.add(new RowResult(index, RowStatus.REJECTED, null, null, invalid));
+                } else {
+                    chunk.add(new Row(index, dto));
+                }
+                index++;
+                if (chunk.size() >= batchSize) {
+                    flush(chunk, knownSenders, knownCouriers, out);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, knownSenders, knownCouriers, out);
+        }
+
+        out.results.sort((a, b) -> Integer.compare(a.index, b.index));
+        out.created = (int) out.results.stream().filter(r -> r.status == RowStatus.CREATED).count();
+        out.rejected = out.results.size() - out.created;
+        out.tookMs = (System.nanoTime() - start) / 1_000_000;
+        return out;
+    }
+
+    private String validate(PackageCreateDto dto) {
+        if (dto == null) return "Empty row";
+        Set<ConstraintViolation<PackageCreateDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void flush(List<Row> chunk, Set<Long> knownSenders, Set<Long> knownCouriers, PackageBulkDto.Response out) {
+        resolve(chunk.stream().map(r -> r.dto().senderCustomerId), knownSenders, customerRepo::findExistingIds);
+        resolve(chunk.stream().map(r -> r.dto().courierId), knownCouriers, courierRepo::findExistingIds);
+
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row r : chunk) {
+            if (!knownSenders.contains(r.dto().senderCustomerId)) {
+                out.results.add(new RowResult(r.index(), RowStatus.REJECTED, null, null, "Sender customer not found"));
+            } else if (r.dto().courierId != null && !knownCouriers.contains(r.dto().courierId)) {
+                out.results.add(new RowResult(r.index(), RowStatus.REJECTED, null, null, "Courier not found"));
+            } else {
+                accepted.add(r);
+            }
+        }
+        if (accepted.isEmpty()) return;
+
+        // id-uri si coduri pre-alocate: un singur round-trip la secventa pentru tot batch-ul
+        long[] newIds = ids.nextIds("packages_seq", accepted.size());
+        List<Insert> inserts = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Row r = accepted.get(i);
+            inserts.add(new Insert(r.index(), r.dto(), newIds[i], packageCreateService.generateUniqueTrackingCode()));
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<PackageStatusEvent> created = new ArrayList<>(inserts.size());
+        for (Insert row : inserts) {
+            PackageCreateDto dto = row.dto();
+            created.add(new PackageStatusEvent(row.id(), row.trackingCode(), dto.senderCustomerId, dto.courierId, null,
+                    null, dto.courierId != null ? PackageStatus.PENDING : PackageStatus.NEW, now.toInstant()));
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                jdbc.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, row) -> {
+                    PackageCreateDto dto = row.dto();
+                    boolean assigned = dto.courierId != null;
+                    ps.setLong(1, row.id());
+                    ps.setString(2, row.trackingCode());
+                    ps.setString(3, (assigned ? PackageStatus.PENDING : PackageStatus.NEW).name());
+                    ps.setObject(4, dto.getWeightKg(), Types.DOUBLE);
+                    ps.setString(5, dto.getPickupAddress());
+                    ps.setString(6, dto.getDeliveryAddress());
+                    ps.setObject(7, dto.getPickupLat(), Types.DOUBLE);
+                    ps.setObject(8, dto.getPickupLng(), Types.DOUBLE);
+                    ps.setObject(9, dto.courierId, Types.BIGINT);
+                    ps.setTimestamp(10, assigned ? now : null);
+                    ps.setLong(11, dto.senderCustomerId);
+                });
+                created.forEach(eventLog::record);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Bulk package batch of {} rows failed", inserts.size(), e);
+            for (Insert row : inserts) {
+                out.results.add(new RowResult(row.index(), RowStatus.REJECTED, null, null, "Batch insert failed"));
+            }
+            return;
+        }
+        for (Insert row : inserts) {
+            out.results.add(new RowResult(row.index(), RowStatus.CREATED, row.id(), row.trackingCode(), null));
+        }
+        created.forEach(events::publishEvent);
+    }
+
+    // o singura interogare per batch, doar pentru id-urile inca necunoscute
+    private void resolve(Stream<Long> ids, Set<Long> known, Function<Collection<Long>, Set<Long>> lookup) {
+        Set<Long> unknown = ids.filter(id -> id != null && !known.contains(id)).collect(Collectors.toSet());
+        if (unknown.isEmpty()) return;
+        known.addAll(lookup.apply(unknown));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.sdt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Distributie in proces a schimbarilor de status catre abonatii SSE. Cate un topic per colet,
+// client si curier, creat la primul abonat si scos la ultimul, deci un eveniment costa doar
+// cateva cautari in map cand nu asculta nimeni. Fiecare abonat are bufferul lui, limitat:
+// un client lent pierde cele mai vechi evenimente in loc sa-i blocheze pe ceilalti.
+@Component
+public class PackageEventHub {
+
+    private static final class Topic {
+        final Sinks.Many<PackageStatusEvent> sink = Sinks.many().multicast().directBestEffort();
+        int subscribers; // modificat doar in topics.compute
+    }
+
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final Counter dropped;
+    private final int bufferSize;
+
+    public PackageEventHub(MeterRegistry meters, @Value("${app.events.buffer-size:256}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.dropped = meters.counter("package.events.dropped");
+        meters.gauge("package.events.topics", topics, ConcurrentHashMap::size);
+    }
+
+    // evenimentele publicate din tranzactii pleaca doar dupa commit; in afara unei tranzactii, imediat
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PackageStatusEvent e) {
+        publish(e);
+    }
+
+    public void publish(PackageStatusEvent e) {
+        emit(packageKey(e.packageId()), e);
+        if (e.customerId() != null) emit(customerKey(e.customerId()), e);
+        if (e.courierId() != null) emit(courierKey(e.courierId()), e);
+        if (e.previousCourierId() != null) emit(courierKey(e.previousCourierId()), e);
+    }
+
+    public Flux<PackageStatusEvent> forPackage(long id) {
+        return subscribe(packageKey(id));
+    }
+
+    public Flux<PackageStatusEvent> forCustomer(long id) {
+        return subscribe(customerKey(id));
+    }
+
+    public Flux<PackageStatusEvent> forCourier(long id) {
+        return subscribe(courierKey(id));
+    }
+
+    private void emit(String key, PackageStatusEvent e) {
+        Topic t = topics.get(key);
+        if (t == null) return;
+        // un Sinks.Many nu accepta emiteri concurente; topicurile sunt mici, deci lock per topic
+        synchronized (t) {
+            t.sink.tryEmitNext(e);
+        }
+    }
+
+    private Flux<PackageStatusEvent> subscribe(String key) {
+        return Flux.defer(() -> {
+            Topic topic = topics.compute(key, (k, t) -> {
+                Topic current = t == null ? new Topic() : t;
+                current.subscribers++;
+                return current;
+            });
+            // onBackpressureBuffer cere nelimitat din sink, deci sink-ul nu vede niciodata un abonat lent
+            return topic.sink.asFlux()
+                    .onBackpressureBuffer(bufferSize, e -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> topics.compute(key, (k, t) -> t == null || --t.subscribers <= 0 ? null : t));
+        });
+    }
+
+    private static String packageKey(long id) {
+        return "package:" + id;
+    }
+
+    private static String customerKey(long id) {
+        return "customer:" + id;
+    }
+
+    private static String courierKey(long id) {
+        return "courier:" + id;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageEventType;
+import com.example.sdt.domain.PackageStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Istoricul append-only al coletelor (tabela package_event, vezi PackageEventPartitions).
+// record() trebuie chemat in tranzactia care schimba coletul: intrarile se strang per
+// tranzactie si se scriu intr-un singur batch JDBC chiar inainte de commit, deci istoricul
+// si starea coletului se salveaza sau se pierd impreuna.
+@Component
+public class PackageEventLog {
+    private static final String INSERT_SQL = """
+            insert into package_event (package_id, at, type, courier_id, previous_courier_id, actor)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private record Entry(PackageStatusEvent event, PackageEventType type, String actor) {}
+
+    private final JdbcTemplate jdbc;
+
+    public PackageEventLog(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void record(PackageStatusEvent e) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Package events must be recorded inside the transaction that changes the package");
+        }
+        @SuppressWarnings("unchecked")
+        List<Entry> pending = (List<Entry>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Entry> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PackageEventLog.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(new Entry(e, typeOf(e), currentActor()));
+    }
+
+    public List<TimelineEntry> timeline(long packageId) {
+        return jdbc.query("""
+                        select at, type, courier_id, previous_courier_id, actor
+                          from package_event where package_id = ? order by at
+                        """,
+                (rs, i) -> new TimelineEntry(rs.getTimestamp(1).toInstant(), PackageEventType.valueOf(rs.getString(2)),
+                        (Long) rs.getObject(3), (Long) rs.getObject(4), rs.getString(5)),
+                packageId);
+    }
+
+    private void write(List<Entry> batch) {
+        if (batch.isEmpty()) return;
+        jdbc.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+            PackageStatusEvent e = entry.event();
+            ps.setLong(1, e.packageId());
+            ps.setTimestamp(2, Timestamp.from(e.at()));
+            ps.setString(3, entry.type().name());
+            ps.setObject(4, e.courierId(), Types.BIGINT);
+            ps.setObject(5, e.previousCourierId(), Types.BIGINT);
+            ps.setString(6, entry.actor());
+        });
+        batch.clear();
+    }
+
+    private static PackageEventType typeOf(PackageStatusEvent e) {
+        if (e.previousStatus() == null) return PackageEventType.CREATED;
+        if (e.status() == PackageStatus.DELIVERED) return PackageEventType.DELIVERED;
+        return e.previousCourierId() != null ? PackageEventType.REASSIGNED : PackageEventType.ASSIGNED;
+    }
+
+    // userul din JWT; "system" pentru rularile programate sau request-urile neautentificate
+    private static String currentActor() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
+            return "system";
+        }
+        return auth.getName();
+    }
+}
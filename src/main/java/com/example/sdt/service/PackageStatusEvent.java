@@ -0,0 +1,21 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageDelivery;
+import com.example.sdt.domain.PackageStatus;
+
+import java.time.Instant;
+
+// O schimbare de status a unui colet. previousStatus e null la creare; previousCourierId e
+// setat doar la o realocare, ca sa afle si curierul vechi ca a pierdut coletul.
+public record PackageStatusEvent(long packageId, String trackingCode, Long customerId, Long courierId,
+                                 Long previousCourierId, PackageStatus previousStatus, PackageStatus status,
+                                 Instant at) {
+
+    public static PackageStatusEvent of(PackageDelivery p, PackageStatus previousStatus, Long previousCourierId) {
+        Long courierId = p.getCourier() == null ? null : p.getCourier().getId();
+        return new PackageStatusEvent(p.getId(), p.getTrackingCode(),
+                p.getSender() == null ? null : p.getSender().getId(), courierId,
+                previousCourierId != null && !previousCourierId.equals(courierId) ? previousCourierId : null,
+                previousStatus, p.getStatus(), Instant.now());
+    }
+}
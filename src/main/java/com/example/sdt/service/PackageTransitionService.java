@@ -0,0 +1,161 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+import com.example.sdt.web.dto.PackageDto;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Livrare si alocare ca UPDATE-uri conditionate: conditia de status e in WHERE, deci doua
+// cereri concurente pentru acelasi colet nu pot trece amandoua (a doua nu mai gaseste randul
+// in starea ceruta). Un singur statement pentru oricate id-uri; doar cand unele nu s-au
+// schimbat se mai citeste statusul lor, ca sa stim de ce.
+@Service
+public class PackageTransitionService {
+
+    private static final String COLUMNS = """
+            p.id, p.tracking_code, p.status, p.weight_kg, p.pickup_address, p.delivery_address,
+            p.pickup_lat, p.pickup_lng, p.courier_id, p.assigned_at, p.delivered_at, p.sender_customer_id
+            """;
+
+    private static final String DELIVER_SQL = """
+            update packages p
+               set status = 'DELIVERED', delivered_at = ?
+             where p.id = any(?) and p.status = 'PENDING'
+            returning
+            """ + COLUMNS;
+
+    // statusul si curierul de dinainte vin din CTE; FOR UPDATE (in ordinea id-urilor, fara
+    // deadlock intre loturi) reciteste randul dupa o eventuala livrare concurenta
+    private static final String ASSIGN_SQL = """
+            with old as (
+                select id, status, courier_id from packages
+                 where id = any(?) and status <> 'DELIVERED'
+                 order by id
+                   for update)
+            update packages p
+               set status = 'PENDING', courier_id = ?, assigned_at = ?
+              from old
+             where p.id = old.id
+            returning old.status as previous_status, old.courier_id as previous_courier_id,
+            """ + COLUMNS;
+
+    // coletele neschimbate: cele care nu exista si statusul celor existente
+    public record Outcome(List<PackageDto> changed, List<Long> notFound, Map<Long, PackageStatus> skipped) {}
+
+    private record Changed(PackageDto dto, PackageStatusEvent event) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
+    private final PackageEventLog eventLog;
+
+    public PackageTransitionService(JdbcTemplate jdbc, TransactionTemplate tx, ApplicationEventPublisher events,
+                                    PackageEventLog eventLog) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.events = events;
+        this.eventLog = eventLog;
+    }
+
+    // PENDING -> DELIVERED
+    public Outcome deliver(Collection<Long> packageIds) {
+        Long[] ids = distinct(packageIds);
+        Timestamp now = Timestamp.from(Instant.now());
+        return apply(ids, () -> jdbc.query(con -> {
+            var ps = con.prepareStatement(DELIVER_SQL);
+            ps.setTimestamp(1, now);
+            ps.setArray(2, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (rs, i) -> {
+            PackageDto d = dto(rs);
+            return new Changed(d, event(d, PackageStatus.PENDING, null, now.toInstant()));
+        }));
+    }
+
+    // orice status in afara de DELIVERED -> PENDING la courierId (alocare sau realocare)
+    public Outcome assign(Collection<Long> packageIds, long courierId) {
+        Long[] ids = distinct(packageIds);
+        Timestamp now = Timestamp.from(Instant.now());
+        return apply(ids, () -> jdbc.query(con -> {
+            var ps = con.prepareStatement(ASSIGN_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setLong(2, courierId);
+            ps.setTimestamp(3, now);
+            return ps;
+        }, (rs, i) -> {
+            PackageDto d = dto(rs);
+            Long previousCourierId = (Long) rs.getObject("previous_courier_id");
+            return new Changed(d, event(d, PackageStatus.valueOf(rs.getString("previous_status")),
+                    previousCourierId, now.toInstant()));
+        }));
+    }
+
+    private Outcome apply(Long[] ids, Supplier<List<Changed>> update) {
+        // istoricul in aceeasi tranzactie cu update-ul; abonatii afla dupa commit
+        List<Changed> done = tx.execute(status -> {
+            List<Changed> rows = update.get();
+            rows.forEach(c -> eventLog.record(c.event()));
+            return rows;
+        });
+        if (done == null) done = List.of();
+        done.forEach(c -> events.publishEvent(c.event()));
+
+        List<PackageDto> changed = new ArrayList<>(done.size());
+        Set<Long> rest = new LinkedHashSet<>(List.of(ids));
+        for (Changed c : done) {
+            changed.add(c.dto());
+            rest.remove(c.dto().getId());
+        }
+        if (rest.isEmpty()) return new Outcome(changed, List.of(), Map.of());
+
+        Map<Long, PackageStatus> skipped = new HashMap<>();
+        jdbc.query(con -> {
+            var ps = con.prepareStatement("select id, status from packages where id = any(?)");
+            ps.setArray(1, con.createArrayOf("bigint", rest.toArray()));
+            return ps;
+        }, rs -> { skipped.put(rs.getLong(1), PackageStatus.valueOf(rs.getString(2))); });
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : rest) if (!skipped.containsKey(id)) notFound.add(id);
+        return new Outcome(changed, notFound, skipped);
+    }
+
+    private static Long[] distinct(Collection<Long> ids) {
+        return new LinkedHashSet<>(ids).toArray(Long[]::new);
+    }
+
+    private static PackageStatusEvent event(PackageDto d, PackageStatus previousStatus, Long previousCourierId,
+                                            Instant at) {
+        Long courierId = d.getCourierId();
+        return new PackageStatusEvent(d.getId(), d.getTrackingCode(), d.getSenderCustomerId(), courierId,
+                previousCourierId != null && !previousCourierId.equals(courierId) ? previousCourierId : null,
+                previousStatus, d.getStatus(), at);
+    }
+
+    private static PackageDto dto(ResultSet rs) throws SQLException {
+        Timestamp assignedAt = rs.getTimestamp("assigned_at");
+        Timestamp deliveredAt = rs.getTimestamp("delivered_at");
+        return new PackageDto(rs.getLong("id"), rs.getString("tracking_code"),
+                PackageStatus.valueOf(rs.getString("status")), (Double) rs.getObject("weight_kg"),
+                rs.getString("pickup_address"), rs.getString("delivery_address"),
+                (Double) rs.getObject("pickup_lat"), (Double) rs.getObject("pickup_lng"),
+                (Long) rs.getObject("courier_id"),
+                assignedAt == null ? null : assignedAt.toInstant(),
+                deliveredAt == null ? null : deliveredAt.toInstant(),
+                rs.getLong("sender_customer_id"));
+    }
+}
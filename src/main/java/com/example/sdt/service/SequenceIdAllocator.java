@@ -0,0 +1,47 @@
+package com.example.sdt.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Id-uri pentru scrieri JDBC directe, compatibile cu @PooledSequence (pooled-lo):
+// fiecare nextval = v rezerva blocul [v, v + increment), deci nu se suprapun cu Hibernate.
+@Component
+public class SequenceIdAllocator {
+    private final JdbcTemplate jdbc;
+    private final Map<String, Long> increments = new ConcurrentHashMap<>();
+
+    public SequenceIdAllocator(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public long[] nextIds(String sequence, int count) {
+        long[] ids = new long[count];
+        if (count == 0) return ids;
+        long increment = increments.computeIfAbsent(sequence, this::loadIncrement);
+        long blocks = (count + increment - 1) / increment;
+        // toate blocurile intr-un singur round-trip
+        List<Long> starts = jdbc.queryForList(
+                "select nextval('" + sequence + "') from generate_series(1, ?)", Long.class, blocks);
+        int i = 0;
+        for (long start : starts) {
+            for (long id = start; id < start + increment && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private long loadIncrement(String sequence) {
+        Long increment = jdbc.queryForObject(
+                "select increment_by from pg_sequences where schemaname = current_schema() and sequencename = ?",
+                Long.class, sequence);
+        if (increment == null || increment <= 0) {
+            throw new IllegalStateException("Sequence " + sequence + " not found");
+        }
+        return increment;
+    }
+}
@@ -1,120 +1,234 @@
 package com.example.sdt.service;
 
-import com.example.sdt.domain.PackageDelivery;
-import com.example.sdt.repo.PackageRepository;
-import com.example.sdt.security.User;
-import com.example.sdt.security.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Chat de suport peste Gemini. Ambele variante (raspuns intreg si stream) impart acelasi
+// WebClient cu pool de conexiuni si aceeasi limita globala de apeluri in curs: peste limita
+// raspundem imediat cu un mesaj degradat in loc sa punem request-ul la coada.
 @Service
 public class SupportAiService {
+    private static final Logger log = LoggerFactory.getLogger(SupportAiService.class);
 
-    private final WebClient webClient;
-    private final PackageRepository packageRepo;
-    private final UserRepository userRepo;
+    private static final String GEMINI_PATH =
+            "/v1beta/models/gemini-2.5-flash-lite:generateContent";
+    private static final String GEMINI_STREAM_PATH =
+            "/v1beta/models/gemini-2.5-flash-lite:streamGenerateContent";
 
-    @Value("${gemini.api.key}")
-    private String geminiApiKey;
+    static final String BUSY_REPLY =
+            "Asistentul AI este foarte solicitat acum. Încearcă din nou în câteva momente.";
+    static final String UNAVAILABLE_REPLY =
+            "Momentan sistemul de asistență AI nu este disponibil. Încearcă din nou mai târziu.";
 
+    private static final ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>> SSE_CHUNK =
+            new ParameterizedTypeReference<>() {};
 
-    private static final String GEMINI_PATH =
-            "/v1beta/models/gemini-2.5-flash-lite:generateContent";
+    private final WebClient webClient;
+    private final SupportContextStore contexts;
+    private final ObjectMapper mapper;
+    private final Semaphore inFlight;
+    private final Counter rejected;
+    private final Timer llmCalls;
+    private final SupportAnswerCache answers;
+    private final Duration idleTimeout;
+    private final Duration totalTimeout;
 
-    public SupportAiService(PackageRepository packageRepo, UserRepository userRepo) {
-        this.packageRepo = packageRepo;
-        this.userRepo = userRepo;
+    @Value("${gemini.api.key}")
+    private String geminiApiKey;
 
+    public SupportAiService(SupportContextStore contexts, SupportAnswerCache answers, ObjectMapper mapper,
+                            MeterRegistry meters,
+                            @Value("${gemini.base-url:https://generativelanguage.googleapis.com}") String baseUrl,
+                            @Value("${app.support.ai.max-in-flight:100}") int maxInFlight,
+                            @Value("${app.support.ai.connect-timeout:2s}") Duration connectTimeout,
+                            @Value("${app.support.ai.idle-timeout:15s}") Duration idleTimeout,
+                            @Value("${app.support.ai.total-timeout:60s}") Duration totalTimeout) {
+        this.contexts = contexts;
+        this.mapper = mapper;
+        this.answers = answers;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.idleTimeout = idleTimeout;
+        this.totalTimeout = totalTimeout;
+        this.rejected = meters.counter("support.ai.rejected");
+        this.llmCalls = meters.timer("support.ai.call");
+        meters.gauge("support.ai.in-flight", inFlight, s -> maxInFlight - s.availablePermits());
+
+        // conexiuni keep-alive refolosite intre apeluri; nu pot fi mai multe decat apeluri permise
+        ConnectionProvider pool = ConnectionProvider.builder("gemini")
+                .maxConnections(maxInFlight)
+                .pendingAcquireTimeout(connectTimeout)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(idleTimeout);
         this.webClient = WebClient.builder()
-                .baseUrl("https://generativelanguage.googleapis.com")
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(http))
                 .build();
     }
 
-    public String answerForUser(String email, String userMessage) {
-
-        User user = userRepo.findByEmail(email).orElse(null);
-        Long customerId = user != null ? user.getCustomerId() : null;
-
-        List<PackageDelivery> recent = customerId == null
-                ? List.of()
-                : packageRepo.findTop5BySenderIdOrderByIdDesc(customerId);
-
-        String packagesSummary = recent.isEmpty()
-                ? "Userul nu are colete recente."
-                : recent.stream()
-                .map(p -> String.format(
-                        "Pachet #%d, tracking %s, status %s, de la '%s' la '%s'.",
-                        p.getId(), p.getTrackingCode(), p.getStatus(),
-                        p.getPickupAddress(), p.getDeliveryAddress()
-                ))
-                .collect(Collectors.joining("\n"));
-
-        String systemPrompt = """
-                Ești un asistent de suport pentru aplicația Smart Delivery Tracker.
-                Vorbești în română, pe scurt și clar.
-                Poți explica statusurile coletelor (NEW, PENDING, DELIVERED),
-                pașii de livrare și poți descrie coletele recente ale userului.
-
-                Nu inventa date de tracking care nu există.
-                Dacă userul întreabă de un tracking necunoscut, spune că nu îl găsești
-                și sugerează să verifice codul sau să contacteze suportul.
-
-                Colete recente ale utilizatorului:
-                """ + packagesSummary;
-
-
-        var contents = List.of(
-                Map.of(
-                        "role", "user",
-                        "parts", List.of(Map.of("text", systemPrompt))
-                ),
-                Map.of(
-                        "role", "user",
-                        "parts", List.of(Map.of("text", userMessage))
-                )
-        );
-
-        var requestBody = Map.of("contents", contents);
-
+    public String answerForUser(Long customerId, String userMessage) {
+        String normalized = SupportAnswerCache.normalize(userMessage);
+        SupportContext context;
+        try {
+            context = contextFor(customerId, normalized).join();
+        } catch (RuntimeException e) {
+            // snapshot-ul clientului nu s-a putut citi (baza ocupata / cazuta): raspuns degradat, ca la stream
+            log.warn("Support context failed: {}", e.toString());
+            return UNAVAILABLE_REPLY;
+        }
+        String key = answers.key(normalized, context);
+        String cached = answers.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (!inFlight.tryAcquire()) {
+            rejected.increment();
+            return BUSY_REPLY;
+        }
         try {
+            long start = System.nanoTime();
             Map<?, ?> response = webClient.post()
                     .uri(uriBuilder -> uriBuilder
                             .path(GEMINI_PATH)
                             .queryParam("key", geminiApiKey)
                             .build()
                     )
-                    .bodyValue(requestBody)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(requestBody(context, userMessage))
                     .retrieve()
                     .bodyToMono(Map.class)
+                    .timeout(totalTimeout)
                     .block();
 
             if (response == null) {
                 return "Nu am primit niciun răspuns de la sistemul AI.";
             }
-
-            var candidates = (List<?>) response.get("candidates");
-            if (candidates == null || candidates.isEmpty()) {
+            String text = textOf(response);
+            if (text == null) {
                 return "Nu am reușit să generez un răspuns.";
             }
-
-            var first = (Map<?, ?>) candidates.get(0);
-            var content = (Map<?, ?>) first.get("content");
-            var parts = (List<?>) content.get("parts");
-            var p0 = (Map<?, ?>) parts.get(0);
-            Object text = p0.get("text");
-            return text != null ? text.toString() : "Nu am reușit să generez un răspuns.";
+            long took = System.nanoTime() - start;
+            llmCalls.record(took, TimeUnit.NANOSECONDS);
+            answers.put(key, text, took);
+            return text;
         } catch (WebClientResponseException e) {
-            System.err.println("Gemini API error: " + e.getStatusCode() + " " + e.getResponseBodyAsString());
-            return "Momentan sistemul de asistență AI nu este disponibil. Încearcă din nou mai târziu.";
+            log.warn("Gemini API error: {} {}", e.getStatusCode(), e.getResponseBodyAsString());
+            return UNAVAILABLE_REPLY;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Gemini call failed", e);
             return "A apărut o eroare la generatorul AI.";
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    // Fragmentele de text in ordinea in care le genereaza modelul. Nu emite niciodata eroare:
+    // peste limita, la timeout sau la o eroare a API-ului se termina cu un mesaj degradat.
+    // idle-timeout = cat asteptam urmatorul fragment; total-timeout taie raspunsurile prea lungi.
+    // Un raspuns din cache vine ca un singur fragment; in cache intra doar stream-urile complete.
+    public Flux<String> streamForUser(Long customerId, String userMessage) {
+        String normalized = SupportAnswerCache.normalize(userMessage);
+        return Mono.fromFuture(() -> contextFor(customerId, normalized))
+                .flatMapMany(context -> {
+                    String key = answers.key(normalized, context);
+                    String cached = answers.get(key);
+                    if (cached != null) {
+                        return Flux.just(cached);
+                    }
+                    if (!inFlight.tryAcquire()) {
+                        rejected.increment();
+                        return Flux.just(BUSY_REPLY);
+                    }
+                    return stream(key, context, userMessage).doFinally(signal -> inFlight.release());
+                })
+                .onErrorResume(e -> {
+                    log.warn("Gemini stream failed: {}", e.toString());
+                    return Mono.just(UNAVAILABLE_REPLY);
+                });
+    }
+
+    private Flux<String> stream(String key, SupportContext context, String userMessage) {
+        long start = System.nanoTime();
+        StringBuilder full = new StringBuilder();
+        AtomicBoolean truncated = new AtomicBoolean();
+        return webClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path(GEMINI_STREAM_PATH)
+                        .queryParam("alt", "sse")
+                        .queryParam("key", geminiApiKey)
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody(context, userMessage))
+                .retrieve()
+                .bodyToFlux(SSE_CHUNK)
+                .mapNotNull(e -> e.data() == null ? null : textOf(e.data()))
+                .timeout(idleTimeout)
+                .takeUntilOther(Mono.delay(totalTimeout).doOnNext(t -> truncated.set(true)))
+                .doOnNext(full::append)
+                .doOnComplete(() -> {
+                    if (truncated.get()) return;
+                    long took = System.nanoTime() - start;
+                    llmCalls.record(took, TimeUnit.NANOSECONDS);
+                    answers.put(key, full.toString(), took);
+                });
+    }
+
+    // Contextul trimis modelului face parte din cheia de cache. Intrebarile generale primesc
+    // un context fix, fara date de user, ca raspunsul sa poata fi refolosit de oricine.
+    private CompletableFuture<SupportContext> contextFor(Long customerId, String normalizedMessage) {
+        return SupportAnswerCache.isGeneric(normalizedMessage)
+                ? CompletableFuture.completedFuture(contexts.generic())
+                : contexts.forCustomer(customerId);
+    }
+
+    private byte[] requestBody(SupportContext context, String userMessage) {
+        try {
+            return context.requestBody(mapper.writeValueAsBytes(userMessage));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String textOf(Map<?, ?> response) {
+        var candidates = (List<?>) response.get("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
         }
+        var first = (Map<?, ?>) candidates.get(0);
+        var content = (Map<?, ?>) first.get("content");
+        if (content == null) return null;
+        var parts = (List<?>) content.get("parts");
+        if (parts == null || parts.isEmpty()) return null;
+        Object text = ((Map<?, ?>) parts.get(0)).get("text");
+        return text != null ? text.toString() : null;
     }
 }
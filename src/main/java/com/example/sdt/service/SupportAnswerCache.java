@@ -0,0 +1,102 @@
+package com.example.sdt.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Raspunsuri AI deja generate, cheie = mesajul normalizat + amprenta (SHA-256) contextului
+// trimis modelului (calculata o data, in SupportContextStore). Contextul contine statusul coletelor recente, deci orice schimbare de
+// status da alta cheie: un raspuns vechi nu mai poate fi servit, doar expira.
+// Intrebarile generale (ce inseamna un status etc.) se trimit fara context de user, deci
+// au aceeasi cheie pentru toti. Memoria e limitata prin greutate (aprox. octeti), nu prin numar.
+@Component
+public class SupportAnswerCache {
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    // "ce inseamna PENDING?" - cerere de explicatie despre un status, nu despre un colet anume
+    private static final Pattern EXPLAIN = Pattern.compile(
+            "\\b(ce inseamna|ce reprezinta|explica|what does|what is|meaning)\\b");
+    private static final Pattern STATUS_NAME = Pattern.compile("\\b(new|pending|delivered)\\b");
+    // orice referire la coletele proprii, coduri sau numere face intrebarea personala
+    private static final Pattern PERSONAL = Pattern.compile(
+            "\\b(meu|mea|mei|mele|my|mine|ro\\d+)\\b|\\d{3,}");
+
+    private record Answer(String reply, long costNanos) {}
+
+    private final Cache<String, Answer> cache;
+    private final Counter saved;
+
+    public SupportAnswerCache(MeterRegistry meters,
+                              @Value("${app.support.cache.max-size:16MB}") DataSize maxSize,
+                              @Value("${app.support.cache.ttl:1h}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, Answer a) -> 64 + 2 * (key.length() + a.reply().length()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meters, cache, "support.answers");
+        this.saved = Counter.builder("support.answers.saved")
+                .baseUnit("seconds")
+                .description("LLM time avoided by cache hits")
+                .register(meters);
+    }
+
+    // lowercase, fara diacritice si punctuatie: "Unde e coletul?" == "unde e coletul"
+    public static String normalize(String message) {
+        String s = Normalizer.normalize(message, Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("").toLowerCase(Locale.ROOT);
+        return NON_WORD.matcher(s).replaceAll(" ").trim();
+    }
+
+    public static boolean isGeneric(String normalized) {
+        return EXPLAIN.matcher(normalized).find()
+                && STATUS_NAME.matcher(normalized).find()
+                && !PERSONAL.matcher(normalized).find();
+    }
+
+    // null = mesajul nu se pune in cache (prea lung)
+    public String key(String normalized, SupportContext context) {
+        if (normalized.isEmpty() || normalized.length() > MAX_MESSAGE_LENGTH) return null;
+        return normalized + '\u0000' + context.fingerprint();
+    }
+
+    public String get(String key) {
+        if (key == null) return null;
+        Answer a = cache.getIfPresent(key);
+        if (a == null) return null;
+        saved.increment(a.costNanos() / 1e9);
+        return a.reply();
+    }
+
+    public void put(String key, String reply, long costNanos) {
+        if (key != null && reply != null && !reply.isBlank()) {
+            cache.put(key, new Answer(reply, costNanos));
+        }
+    }
+
+    static String fingerprint(String context) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(context.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
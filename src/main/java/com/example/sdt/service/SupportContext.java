@@ -0,0 +1,19 @@
+package com.example.sdt.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Cererea catre Gemini deja serializata pana la mesajul userului: promptul de sistem cu
+// coletele recente e randat o singura data, per client, nu la fiecare mesaj.
+// fingerprint = amprenta promptului, folosita in cheia din SupportAnswerCache.
+public record SupportContext(byte[] bodyPrefix, String fingerprint) {
+    private static final byte[] BODY_SUFFIX = "}]}]}".getBytes(StandardCharsets.UTF_8);
+
+    // messageJson = mesajul userului ca string JSON (cu ghilimele si escape-uri)
+    public byte[] requestBody(byte[] messageJson) {
+        byte[] body = Arrays.copyOf(bodyPrefix, bodyPrefix.length + messageJson.length + BODY_SUFFIX.length);
+        System.arraycopy(messageJson, 0, body, bodyPrefix.length, messageJson.length);
+        System.arraycopy(BODY_SUFFIX, 0, body, bodyPrefix.length + messageJson.length, BODY_SUFFIX.length);
+        return body;
+    }
+}
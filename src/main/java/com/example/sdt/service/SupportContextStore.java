@@ -0,0 +1,158 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+import com.example.sdt.repo.PackageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+// Contextul de suport al fiecarui client (ultimele colete, prompt randat), tinut in memorie si
+// actualizat din evenimentele de status: alocarea si livrarea schimba doar linia coletului,
+// fara interogari. La un colet nou (evenimentul nu are adresele) se reincarca in fundal
+// snapshot-ul clientului, daca era deja in cache; pana atunci se serveste cel vechi.
+// Un snapshot aflat inca in incarcare cand vine un eveniment e aruncat si reincarcat la cerere.
+// Schimbarile facute de alte instante sau direct in baza nu ajung aici ca evenimente, asa ca
+// fiecare snapshot expira la ttl dupa ce a fost citit din baza; accesul si actualizarile din
+// evenimente nu ii prelungesc viata.
+@Component
+public class SupportContextStore {
+    static final int RECENT_PACKAGES = 5;
+
+    private static final String SYSTEM_PROMPT = """
+            Ești un asistent de suport pentru aplicația Smart Delivery Tracker.
+            Vorbești în română, pe scurt și clar.
+            Poți explica statusurile coletelor (NEW, PENDING, DELIVERED),
+            pașii de livrare și poți descrie coletele recente ale userului.
+
+            Nu inventa date de tracking care nu există.
+            Dacă userul întreabă de un tracking necunoscut, spune că nu îl găsești
+            și sugerează să verifice codul sau să contacteze suportul.
+
+            Colete recente ale utilizatorului:
+            """;
+    private static final String NO_PACKAGES = "Userul nu are colete recente.";
+    // intrebare generala: raspunsul nu depinde de user, deci e partajat in cache
+    private static final String GENERIC = "Întrebare generală; nu descrie coletele utilizatorului.";
+
+    // loadedAt: System.nanoTime() la citirea din baza, pastrat cand snapshot-ul e actualizat din evenimente
+    private record Snapshot(List<SupportPackageLine> recent, SupportContext context, long loadedAt) {}
+
+    private final AsyncLoadingCache<Long, Snapshot> cache;
+    private final ObjectMapper mapper;
+    private final SupportContext noPackages;
+    private final SupportContext generic;
+
+    public SupportContextStore(PackageRepository packageRepo, ObjectMapper mapper, MeterRegistry meters,
+                               ExecutorService cacheLoaders,
+                               @Value("${app.support.context.max-size:50000}") long maxSize,
+                               @Value("${app.support.context.ttl:1m}") Duration ttl) {
+        this.mapper = mapper;
+        this.noPackages = render(NO_PACKAGES);
+        this.generic = render(GENERIC);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new SinceLoaded(ttl.toNanos()))
+                .recordStats()
+                .executor(cacheLoaders)
+                .buildAsync(customerId -> {
+                    long loadedAt = System.nanoTime();
+                    return snapshot(packageRepo.findSupportLines(customerId, Limit.of(RECENT_PACKAGES)), loadedAt);
+                });
+        CaffeineCacheMetrics.monitor(meters, cache, "support.contexts");
+    }
+
+    public SupportContext generic() {
+        return generic;
+    }
+
+    public CompletableFuture<SupportContext> forCustomer(Long customerId) {
+        if (customerId == null) return CompletableFuture.completedFuture(noPackages);
+        return cache.get(customerId).thenApply(Snapshot::context);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PackageStatusEvent e) {
+        if (e.customerId() == null) return;
+        if (e.previousStatus() == null) {
+            if (cache.asMap().containsKey(e.customerId())) cache.synchronous().refresh(e.customerId());
+            return;
+        }
+        cache.asMap().computeIfPresent(e.customerId(), (id, f) -> {
+            if (!f.isDone() || f.isCompletedExceptionally()) return null;
+            Snapshot s = f.join();
+            List<SupportPackageLine> recent = new ArrayList<>(s.recent());
+            boolean changed = false;
+            for (int i = 0; i < recent.size(); i++) {
+                SupportPackageLine line = recent.get(i);
+                if (line.packageId() == e.packageId() && line.status() != e.status()) {
+                    recent.set(i, line.withStatus(e.status()));
+                    changed = true;
+                }
+            }
+            return changed ? CompletableFuture.completedFuture(snapshot(recent, s.loadedAt())) : f;
+        });
+    }
+
+    private Snapshot snapshot(List<SupportPackageLine> recent, long loadedAt) {
+        if (recent.isEmpty()) return new Snapshot(List.of(), noPackages, loadedAt);
+        String summary = recent.stream()
+                .map(p -> String.format(
+                        "Pachet #%d, tracking %s, status %s, de la '%s' la '%s'.",
+                        p.packageId(), p.trackingCode(), p.status(),
+                        p.pickupAddress(), p.deliveryAddress()
+                ))
+                .collect(Collectors.joining("\n"));
+        return new Snapshot(List.copyOf(recent), render(summary), loadedAt);
+    }
+
+    private record SinceLoaded(long ttlNanos) implements Expiry<Long, Snapshot> {
+        @Override
+        public long expireAfterCreate(Long customerId, Snapshot s, long currentTime) {
+            return Math.max(0, ttlNanos - (currentTime - s.loadedAt()));
+        }
+
+        @Override
+        public long expireAfterUpdate(Long customerId, Snapshot s, long currentTime, long currentDuration) {
+            return expireAfterCreate(customerId, s, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long customerId, Snapshot s, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    // {"contents":[{"role":"user","parts":[{"text":<prompt>}]},{"role":"user","parts":[{"text":
+    // restul (mesajul si inchiderea) se adauga in SupportContext.requestBody
+    private SupportContext render(String packagesSummary) {
+        String prompt = SYSTEM_PROMPT + packagesSummary;
+        try {
+            String first = mapper.writeValueAsString(Map.of("role", "user", "parts", List.of(Map.of("text", prompt))));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(first.length() + 64);
+            out.writeBytes("{\"contents\":[".getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(first.getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(",{\"role\":\"user\",\"parts\":[{\"text\":".getBytes(StandardCharsets.UTF_8));
+            return new SupportContext(out.toByteArray(), SupportAnswerCache.fingerprint(prompt));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+
+// Ce stie asistentul AI despre un colet recent al clientului.
+public record SupportPackageLine(long packageId, String trackingCode, PackageStatus status,
+                                 String pickupAddress, String deliveryAddress) {
+
+    SupportPackageLine withStatus(PackageStatus newStatus) {
+        return new SupportPackageLine(packageId, trackingCode, newStatus, pickupAddress, deliveryAddress);
+    }
+}
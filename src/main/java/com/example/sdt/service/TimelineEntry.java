@@ -0,0 +1,7 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageEventType;
+
+import java.time.Instant;
+
+public record TimelineEntry(Instant at, PackageEventType type, Long courierId, Long previousCourierId, String actor) {}
@@ -0,0 +1,70 @@
+package com.example.sdt.service;
+
+import com.example.sdt.repo.PackageRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+// Cache read-through pentru GET /api/track/{code}. Codurile necunoscute se tin minte scurt
+// (Optional.empty), ca un cod gresit repetat sa nu ajunga de fiecare data in baza.
+// Orice schimbare de status scoate intrarea dupa commit, inainte sa raspunda request-ul care a
+// facut-o. Cache-ul e asincron: load-ul (JDBC) ruleaza pe un fir virtual separat, nu in
+// monitorul din ConcurrentHashMap.compute, unde ar tine ocupat firul purtator. Un load in curs
+// pe o cheie invalidata nu mai ajunge in cache.
+@Component
+public class TrackingCache {
+    private final AsyncLoadingCache<String, Optional<TrackingView>> cache;
+    private final Timer lookups;
+
+    public TrackingCache(PackageRepository packageRepo, MeterRegistry meters, ExecutorService cacheLoaders,
+                         @Value("${app.tracking.cache.max-size:100000}") long maxSize,
+                         @Value("${app.tracking.cache.ttl:5m}") Duration ttl,
+                         @Value("${app.tracking.cache.negative-ttl:10s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ByResult(ttl, negativeTtl))
+                .recordStats()
+                .executor(cacheLoaders)
+                .buildAsync(packageRepo::findTrackingView);
+        CaffeineCacheMetrics.monitor(meters, cache, "tracking.views");
+        this.lookups = Timer.builder("tracking.lookup")
+                .publishPercentileHistogram()
+                .register(meters);
+    }
+
+    public Optional<TrackingView> get(String trackingCode) {
+        return lookups.record(() -> cache.get(trackingCode).join());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PackageStatusEvent e) {
+        if (e.trackingCode() != null) cache.synchronous().invalidate(e.trackingCode());
+    }
+
+    private record ByResult(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<TrackingView>> {
+        @Override
+        public long expireAfterCreate(String code, Optional<TrackingView> view, long currentTime) {
+            return (view.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String code, Optional<TrackingView> view, long currentTime, long currentDuration) {
+            return expireAfterCreate(code, view, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String code, Optional<TrackingView> view, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
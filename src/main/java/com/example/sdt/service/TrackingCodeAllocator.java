@@ -0,0 +1,142 @@
+package com.example.sdt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Coduri de tracking unice prin constructie: fiecare instanta rezerva un bloc din
+// tracking_code_seq (un nextval per bloc), iar fiecare numar trece printr-o permutare
+// Feistel cu cheie peste cele 10^10 valori ale formatului RO + 10 cifre.
+@Component
+public class TrackingCodeAllocator {
+    private static final Logger log = LoggerFactory.getLogger(TrackingCodeAllocator.class);
+
+    static final String SEQUENCE = "tracking_code_seq";
+
+    private static final long HALF = 100_000L;      // 10^5 - fiecare jumatate din Feistel
+    private static final long SPACE = HALF * HALF;  // 10^10 coduri posibile
+    private static final int ROUNDS = 4;
+
+    private final JdbcTemplate jdbc;
+    private final int configuredBlockSize;
+    private final long[] roundKeys;
+    // lock explicit, nu synchronized: reserveBlock face I/O, iar un fir virtual blocat intr-un
+    // monitor ramane lipit de firul purtator (Java 21)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long blockSize;
+    private long next;   // urmatorul numar liber din blocul curent
+    private long limit;  // capatul (exclusiv) al blocului curent
+
+    // ATENTIE: cheia nu se mai schimba dupa ce exista coduri emise, altfel permutarea
+    // se schimba si unicitatea fata de codurile vechi nu mai e garantata.
+    public TrackingCodeAllocator(JdbcTemplate jdbc,
+                                 @Value("${app.tracking.block-size:1000}") int blockSize,
+                                 @Value("${app.tracking.key}") String key) {
+        if (blockSize <= 0) throw new IllegalArgumentException("app.tracking.block-size must be positive");
+        this.jdbc = jdbc;
+        this.configuredBlockSize = blockSize;
+        this.roundKeys = deriveRoundKeys(key);
+    }
+
+    public String next() {
+        long n;
+        lock.lock();
+        try {
+            if (next >= limit) {
+                reserveBlock();
+            }
+            n = next++;
+        } finally {
+            lock.unlock();
+        }
+        return format(permute(n));
+    }
+
+    private void reserveBlock() {
+        if (blockSize == 0) {
+            blockSize = initSequence();
+        }
+        Long start = jdbc.queryForObject("select nextval('" + SEQUENCE + "')", Long.class);
+        if (start == null || start + blockSize > SPACE) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tracking code space exhausted");
+        }
+        next = start;
+        limit = start + blockSize;
+    }
+
+    // Secventa creste cu marimea blocului, deci nextval rezerva atomic [v, v + increment).
+    // Incrementul din baza e sursa de adevar, ca toate instantele sa foloseasca acelasi bloc.
+    private long initSequence() {
+        jdbc.execute("create sequence if not exists " + SEQUENCE + " increment by " + configuredBlockSize);
+        Long increment = jdbc.queryForObject(
+                "select increment_by from pg_sequences where schemaname = current_schema() and sequencename = ?",
+                Long.class, SEQUENCE);
+        if (increment == null || increment <= 0) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " has no usable increment");
+        }
+        if (increment != configuredBlockSize) {
+            log.warn("{} increments by {}, ignoring app.tracking.block-size={}", SEQUENCE, increment, configuredBlockSize);
+        }
+        return increment;
+    }
+
+    long permute(long n) {
+        long l = n / HALF, r = n % HALF;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t = r;
+            r = Math.floorMod(l + round(r, roundKeys[i]), HALF);
+            l = t;
+        }
+        return l * HALF + r;
+    }
+
+    long unpermute(long code) {
+        long l = code / HALF, r = code % HALF;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long t = l;
+            l = Math.floorMod(r - round(l, roundKeys[i]), HALF);
+            r = t;
+        }
+        return l * HALF + r;
+    }
+
+    private static long round(long half, long key) {
+        long z = half ^ key;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return Math.floorMod(z ^ (z >>> 31), HALF);
+    }
+
+    private static String format(long code) {
+        // RO + 10 cifre, cu zerouri in fata
+        char[] out = {'R', 'O', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0'};
+        for (int i = out.length - 1; code > 0; i--) {
+            out[i] = (char) ('0' + code % 10);
+            code /= 10;
+        }
+        return new String(out);
+    }
+
+    private static long[] deriveRoundKeys(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buf = ByteBuffer.wrap(digest);
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) keys[i] = buf.getLong();
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.sdt.service;
+
+import com.example.sdt.domain.PackageStatus;
+
+import java.time.Instant;
+
+// Ce vede public oricine are codul de tracking: doar statusul si momentele lui, fara adrese.
+public record TrackingView(String trackingCode, PackageStatus status, Instant assignedAt, Instant deliveredAt) {}
@@ -2,15 +2,33 @@ package com.example.sdt.web;
 
 import com.example.sdt.domain.Courier;
 import com.example.sdt.repo.CourierRepository;
+import com.example.sdt.service.CourierHierarchy;
+import com.example.sdt.service.CourierImportService;
+import com.example.sdt.service.CourierLoad;
+import com.example.sdt.service.CourierLocationStore;
+import com.example.sdt.service.CourierPosition;
+import com.example.sdt.service.CourierTeamMember;
+import com.example.sdt.service.CourierWorkload;
 import com.example.sdt.web.dto.CourierDto;
+import com.example.sdt.web.dto.CourierImportDto;
 import com.example.sdt.web.dto.CourierPatchDto;
+import com.example.sdt.web.dto.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,9 +39,21 @@ import org.springframework.data.domain.Pageable;
 public class CourierController {
 
     private final CourierRepository courierRepo;
-
-    public CourierController(CourierRepository courierRepo) {
+    private final CourierLocationStore locations;
+    private final CourierImportService importService;
+    private final CourierHierarchy hierarchy;
+    private final CourierWorkload workload;
+    private final ObjectMapper mapper;
+
+    public CourierController(CourierRepository courierRepo, CourierLocationStore locations,
+                             CourierImportService importService, CourierHierarchy hierarchy,
+                             CourierWorkload workload, ObjectMapper mapper) {
         this.courierRepo = courierRepo;
+        this.locations = locations;
+        this.hierarchy = hierarchy;
+        this.workload = workload;
+        this.importService = importService;
+        this.mapper = mapper;
     }
 // ----------- MAGNIFICELE OPERATII CRUD ----------------------
     // --- CREATE ---
@@ -45,11 +75,41 @@ public class CourierController {
         }
 
         Courier saved = courierRepo.save(c);
+        locations.sync(saved.getId(), saved.getLastLat(), saved.getLastLng());
 
         CourierDto out = toDto(saved);
         return ResponseEntity.created(URI.create("/api/couriers/" + saved.getId())).body(out);
     }
 
+    // --- IMPORT (CSV sau NDJSON, citit ca stream) ---
+    // raspuns NDJSON: cate un RowResult pe linie, trimise dupa fiecare batch comis, apoi Summary
+
+    @PostMapping(value = "/import",
+            consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importCouriers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                InputStream body) {
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"));
+        StreamingResponseBody stream = out -> {
+            Consumer<List<CourierImportDto.RowResult>> sink = results -> {
+                try {
+                    for (var r : results) writeLine(out, r);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            var summary = csv ? importService.importCsv(body, sink) : importService.importNdjson(body, sink);
+            writeLine(out, summary);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(mapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
     // --- READ all---
 
     @GetMapping
@@ -57,6 +117,21 @@ public class CourierController {
         return courierRepo.findAll(pageable).map(this::toDto);
     }
 
+    // varianta cu cursor, in ordinea id-urilor: fara COUNT(*) si fara OFFSET
+    @GetMapping("/scroll")
+    public CursorPage<CourierDto> scroll(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size) {
+        long[] after = KeysetCursor.decode(cursor, 1);
+        var rows = courierRepo.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after[0], KeysetCursor.limit(size));
+        return KeysetCursor.page(rows, size, c -> KeysetCursor.encode(c.getId()), this::toDto);
+    }
+
+    // colete PENDING per curier, din contoarele din memorie (fara interogari)
+    @GetMapping("/workload")
+    public List<CourierLoad> workload() {
+        return workload.snapshot();
+    }
+
     // --- READ one ---
 
     @GetMapping("/{id}")
@@ -83,15 +158,11 @@ public class CourierController {
         c.setLastLat(dto.getLastLat());
         c.setLastLng(dto.getLastLng());
 
-        if (dto.getManagerId() != null) {
-            Courier mgr = courierRepo.findById(dto.getManagerId())
-                    .orElseThrow(() -> new IllegalArgumentException("Manager not found"));
-            c.setManager(mgr);
-        } else {
-            c.setManager(null);
-        }
+        c.setManager(dto.getManagerId() == null ? null : managerFor(id, dto.getManagerId()));
 
-        return toDto(courierRepo.save(c));
+        c = courierRepo.save(c);
+        locations.sync(c.getId(), c.getLastLat(), c.getLastLng());
+        return toDto(c);
     }
 
     @PatchMapping("/{id}")
@@ -107,20 +178,33 @@ public class CourierController {
                     .ifPresent(other -> { throw new IllegalArgumentException("Email already used"); });
             c.setEmail(body.getEmail());
         }
-        if (body.getManagerId() != null) {
-            Courier mgr = courierRepo.findById(body.getManagerId())
-                    .orElseThrow(() -> new IllegalArgumentException("Manager not found"));
-            c.setManager(mgr);
-        } else {
-            c.setManager(null);
-        }
-        if (body.lastLat != null) c.setLastLat(body.lastLat);
-        if (body.lastLng != null) c.setLastLng(body.lastLng);
+        c.setManager(body.getManagerId() == null ? null : managerFor(id, body.getManagerId()));
 
         c = courierRepo.save(c);
+        // pozitia din entitate e cea din ultimul flush, deci poate fi mai veche decat cea din
+        // memorie: o atingem doar cand vine in body, ca un ping cu ora serverului
+        if (body.lastLat != null || body.lastLng != null) {
+            if (!locations.update(id, body.lastLat, body.lastLng, null)) {
+                throw new IllegalArgumentException("Invalid coordinates");
+            }
+        }
         return toDto(c);
     }
 
+    // --- ECHIPA (subordonati directi si indirecti) ---
+
+    @GetMapping("/{id}/team")
+    public List<CourierTeamMember> team(@PathVariable Long id, @RequestParam(required = false) Integer depth) {
+        if (depth != null && depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        List<CourierTeamMember> team = hierarchy.team(id, depth == null ? Integer.MAX_VALUE : depth);
+        if (team.isEmpty() && !courierRepo.existsById(id)) {
+            throw new IllegalArgumentException("Courier not found");
+        }
+        return team;
+    }
+
     // ---DELETE---
 
     @DeleteMapping("/{id}")
@@ -129,17 +213,29 @@ public class CourierController {
             return ResponseEntity.notFound().build();
         }
         courierRepo.deleteById(id);
+        locations.remove(id);
         return ResponseEntity.noContent().build();
     }
 
+    private Courier managerFor(Long courierId, Long managerId) {
+        Courier mgr = courierRepo.findById(managerId)
+                .orElseThrow(() -> new IllegalArgumentException("Manager not found"));
+        if (hierarchy.wouldCreateCycle(courierId, managerId)) {
+            throw new IllegalArgumentException("Manager cannot be the courier or one of its subordinates");
+        }
+        return mgr;
+    }
+
     // ---MAPPING SIMPLU---
     private CourierDto toDto(Courier c) {
         CourierDto d = new CourierDto();
         d.setId(c.getId());
         d.setName(c.getName());
         d.setEmail(c.getEmail());
-        d.setLastLat(c.getLastLat());
-        d.setLastLng(c.getLastLng());
+        // pozitia din memorie e mai noua decat ce a apucat sa fie scris in baza
+        CourierPosition pos = locations.get(c.getId());
+        d.setLastLat(pos != null ? Double.valueOf(pos.lat()) : c.getLastLat());
+        d.setLastLng(pos != null ? Double.valueOf(pos.lng()) : c.getLastLng());
         d.setManagerId(c.getManager() == null ? null : c.getManager().getId());
         return d;
     }
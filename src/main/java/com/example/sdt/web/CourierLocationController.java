@@ -0,0 +1,81 @@
+package com.example.sdt.web;
+
+import com.example.sdt.service.CourierLocationStore;
+import com.example.sdt.service.CourierPosition;
+import com.example.sdt.service.CourierSpatialIndex;
+import com.example.sdt.service.NearbyCourier;
+import com.example.sdt.web.dto.LocationPingDto;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Ingestie GPS pentru curieri: scrie doar in memorie, baza e actualizata periodic
+// de CourierLocationStore.flush(). Citirile de pozitii se servesc tot din memorie.
+@RestController
+@RequestMapping("/api/couriers")
+public class CourierLocationController {
+
+    private final CourierLocationStore locations;
+    private final CourierSpatialIndex index;
+
+    public CourierLocationController(CourierLocationStore locations, CourierSpatialIndex index) {
+        this.locations = locations;
+        this.index = index;
+    }
+
+    @PostMapping("/{id}/location")
+    public ResponseEntity<Void> ping(@PathVariable Long id, @Valid @RequestBody LocationPingDto body) {
+        if (!locations.update(id, body.lat, body.lng, body.at)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/locations")
+    public ResponseEntity<Map<String, Integer>> pingBatch(@RequestBody List<LocationPingDto> body) {
+        int accepted = 0;
+        for (LocationPingDto p : body) {
+            if (p != null && p.courierId != null && locations.update(p.courierId, p.lat, p.lng, p.at)) {
+                accepted++;
+            }
+        }
+        return ResponseEntity.accepted().body(Map.of("accepted", accepted, "rejected", body.size() - accepted));
+    }
+
+    @GetMapping("/locations")
+    public Collection<CourierPosition> all() {
+        return locations.all();
+    }
+
+    // cei mai apropiati k curieri (optional doar cei din raza data), din indexul spatial
+    @GetMapping("/nearby")
+    public List<NearbyCourier> nearby(@RequestParam double lat, @RequestParam double lng,
+                                      @RequestParam(defaultValue = "10") int k,
+                                      @RequestParam(required = false) Double radiusKm) {
+        if (!CourierPosition.isValid(lat, lng)) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+        if (k < 1 || k > 100) {
+            throw new IllegalArgumentException("k must be between 1 and 100");
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("radiusKm must be positive");
+        }
+        return index.nearest(lat, lng, k, radiusKm);
+    }
+
+    @GetMapping("/{id}/location")
+    public CourierPosition get(@PathVariable Long id) {
+        CourierPosition p = locations.get(id);
+        if (p == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No known position for courier");
+        }
+        return p;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.sdt.web;
 import com.example.sdt.domain.Customer;
 import com.example.sdt.repo.CustomerRepository;
 import com.example.sdt.web.dto.CustomerCreateDto;
+import com.example.sdt.web.dto.CursorPage;
 import com.example.sdt.web.dto.CustomerDto;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.*;
@@ -10,6 +11,9 @@ import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("api/customers")
@@ -53,6 +57,18 @@ public class CustomerController {
         return customerRepo.findAll(pageable).map(this::toDto);
     }
 
+    // varianta cu cursor pe (createdAt, id), cei mai noi primii: fara COUNT(*) si fara OFFSET
+    @GetMapping("/scroll")
+    public CursorPage<CustomerDto> scroll(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int size) {
+        long[] before = KeysetCursor.decode(cursor, 2);
+        Limit limit = KeysetCursor.limit(size);
+        List<Customer> rows = before == null
+                ? customerRepo.findNewest(limit)
+                : customerRepo.findNewestBefore(fromMicros(before[0]), before[1], limit);
+        return KeysetCursor.page(rows, size, c -> KeysetCursor.encode(toMicros(c.getCreatedAt()), c.getId()), this::toDto);
+    }
+
 
     // UPDATE
     @PutMapping("/{id}")
@@ -103,6 +119,15 @@ public class CustomerController {
         return d;
     }
 
+    // Postgres pastreaza timestamp-urile la microsecunda, deci cursorul nu pierde precizie
+    private static long toMicros(Instant t) {
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1_000);
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
     private Sort toSort(String sortParam) {
         if (sortParam == null || sortParam.isBlank()) return Sort.by("createdAt").descending();
         String[] p = sortParam.split(",");
@@ -0,0 +1,24 @@
+package com.example.sdt.web;
+
+import com.example.sdt.service.DispatchService;
+import com.example.sdt.service.DispatchService.DispatchReport;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dispatch")
+public class DispatchController {
+
+    private final DispatchService dispatchService;
+
+    public DispatchController(DispatchService dispatchService) {
+        this.dispatchService = dispatchService;
+    }
+
+    // rulare la cerere a alocarii automate (pe langa cea programata, daca e activata)
+    @PostMapping("/run")
+    public DispatchReport run() {
+        return dispatchService.run();
+    }
+}
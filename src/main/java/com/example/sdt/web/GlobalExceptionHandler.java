@@ -1,15 +1,20 @@
 package com.example.sdt.web;
 
+import com.example.sdt.security.PasswordHashingBusyException;
 import com.example.sdt.web.dto.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -57,6 +62,34 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, ex.getMessage(), req, null);
     }
 
+    // pool-ul JDBC plin peste connection-timeout: suprasarcina temporara, clientul poate reincerca.
+    // Vine ca CannotGetJdbcConnectionException (JdbcTemplate), DataAccessResourceFailureException
+    // (repository-uri JPA) sau CannotCreateTransactionException, cu SQLTransientConnectionException
+    // de la Hikari dedesubt. Cand baza e de negasit Hikari pune eroarea de conectare drept cauza:
+    // acela nu e "busy", merge la handler-ul generic.
+    @org.springframework.web.bind.annotation.ExceptionHandler({DataAccessResourceFailureException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<ErrorResponse> handleNoConnection(Exception ex, HttpServletRequest req) {
+        if (!isPoolTimeout(ex)) {
+            return handleGeneric(ex, req);
+        }
+        ResponseEntity<ErrorResponse> res = build(HttpStatus.SERVICE_UNAVAILABLE, "Database busy, retry later", req, null);
+        return ResponseEntity.status(res.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "1").body(res.getBody());
+    }
+
+    private static boolean isPoolTimeout(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException) return t.getCause() == null;
+        }
+        return false;
+    }
+
+    // pool-ul de hashing al parolelor e plin (val de login-uri)
+    @org.springframework.web.bind.annotation.ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorResponse> handleHashingBusy(PasswordHashingBusyException ex, HttpServletRequest req) {
+        ResponseEntity<ErrorResponse> res = build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req, null);
+        return ResponseEntity.status(res.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "1").body(res.getBody());
+    }
+
     // fallback
     @org.springframework.web.bind.annotation.ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneric(Exception ex, HttpServletRequest req) {
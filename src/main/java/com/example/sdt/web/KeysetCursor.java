@@ -0,0 +1,57 @@
+package com.example.sdt.web;
+
+import com.example.sdt.web.dto.CursorPage;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Cursor opac pentru paginarea keyset: valorile cheii de sortare ale ultimului rand trimis,
+// codate Base64url. Clientul il trimite inapoi neschimbat ca "cursor".
+final class KeysetCursor {
+    static final int DEFAULT_SIZE = 20;
+    static final int MAX_SIZE = 200;
+
+    private KeysetCursor() {}
+
+    static String encode(long... values) {
+        StringBuilder sb = new StringBuilder();
+        for (long v : values) {
+            if (!sb.isEmpty()) sb.append(':');
+            sb.append(v);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // null daca nu s-a trimis cursor (prima pagina)
+    static long[] decode(String cursor, int parts) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (raw.length != parts) throw new IllegalArgumentException("Invalid cursor");
+            long[] values = new long[parts];
+            for (int i = 0; i < parts; i++) values[i] = Long.parseLong(raw[i]);
+            return values;
+        } catch (IllegalArgumentException e) {
+            // include NumberFormatException si Base64 invalid
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // se cere un rand in plus ca sa stim daca mai urmeaza ceva, fara COUNT(*)
+    static Limit limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE);
+        }
+        return Limit.of(size + 1);
+    }
+
+    static <E, D> CursorPage<D> page(List<E> rows, int size, Function<E, String> cursorOf, Function<E, D> toDto) {
+        boolean more = rows.size() > size;
+        List<E> items = more ? rows.subList(0, size) : rows;
+        String next = more ? cursorOf.apply(items.get(size - 1)) : null;
+        return new CursorPage<>(items.stream().map(toDto).toList(), next);
+    }
+}
@@ -6,12 +6,22 @@ import com.example.sdt.domain.PackageStatus;
 import com.example.sdt.repo.CourierRepository;
 import com.example.sdt.repo.CustomerRepository;
 import com.example.sdt.repo.PackageRepository;
+import com.example.sdt.web.dto.CursorPage;
+import com.example.sdt.web.dto.PackageBatchDto;
+import com.example.sdt.web.dto.PackageBulkDto;
 import com.example.sdt.web.dto.PackageCreateDto;
 import com.example.sdt.web.dto.PackageDto;
+import com.example.sdt.service.PackageBulkService;
 import com.example.sdt.service.PackageCreateService;
+import com.example.sdt.service.PackageEventLog;
+import com.example.sdt.service.PackageStatusEvent;
+import com.example.sdt.service.PackageTransitionService;
+import com.example.sdt.service.TimelineEntry;
 import jakarta.validation.Valid;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -19,8 +29,11 @@ import org.springframework.web.server.ResponseStatusException;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.time.Instant;
+import java.util.List;
 
 
 @RestController
@@ -30,17 +43,28 @@ public class PackageController {
     private final CourierRepository courierRepo;
     private final PackageCreateService packageCreateService;
     private final CustomerRepository customerRepo;
-
-    public PackageController(PackageRepository packageRepo, CourierRepository courierRepo, PackageCreateService packageCreateService, CustomerRepository customerRepo) {
+    private final PackageBulkService packageBulkService;
+    private final ApplicationEventPublisher events;
+    private final PackageEventLog eventLog;
+    private final PackageTransitionService transitions;
+
+    public PackageController(PackageRepository packageRepo, CourierRepository courierRepo, PackageCreateService packageCreateService, CustomerRepository customerRepo,
+                             PackageBulkService packageBulkService, ApplicationEventPublisher events, PackageEventLog eventLog,
+                             PackageTransitionService transitions) {
         this.packageRepo = packageRepo;
         this.courierRepo = courierRepo;
         this.packageCreateService = packageCreateService;
         this.customerRepo = customerRepo;
+        this.packageBulkService = packageBulkService;
+        this.events = events;
+        this.eventLog = eventLog;
+        this.transitions = transitions;
     }
 
     // --- CREATE PACKAGE ---
 
     @PostMapping("/packages")
+    @Transactional
     public ResponseEntity<PackageDto> create(@Valid @RequestBody PackageCreateDto dto) {
         var sender = customerRepo.findById(dto.senderCustomerId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sender customer not found"));
@@ -49,6 +73,8 @@ public class PackageController {
         p.setPickupAddress(dto.getPickupAddress());
         p.setDeliveryAddress(dto.getDeliveryAddress());
         p.setWeightKg(dto.getWeightKg());
+        p.setPickupLat(dto.getPickupLat());
+        p.setPickupLng(dto.getPickupLng());
         p.setSender(sender);
 
 
@@ -67,10 +93,20 @@ public class PackageController {
         }
 
         p = packageRepo.save(p);
+        statusChanged(PackageStatusEvent.of(p, null, null));
         return ResponseEntity.status(HttpStatus.CREATED).body(toDto(p));
     }
 
+    // --- BULK CREATE (array JSON sau NDJSON, citit ca stream) ---
+
+    @PostMapping(value = "/packages/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public PackageBulkDto.Response bulkCreate(InputStream body) throws IOException {
+        return packageBulkService.ingest(body);
+    }
+
     @PostMapping("/customers/{customerId}/packages")
+    @Transactional
     public ResponseEntity<PackageDto> createForCustomer(@PathVariable Long customerId,
                                                         @Valid @RequestBody PackageCreateDto dto) {
         dto.senderCustomerId = customerId;
@@ -81,69 +117,137 @@ public class PackageController {
 
     @GetMapping("/packages/{id}")
     public PackageDto get(@PathVariable Long id) {
-        PackageDelivery p = packageRepo.findById(id)
+        return packageRepo.findDtoById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found"));
-        return toDto(p);
     }
     @GetMapping("/customers/{customerId}/packages")
     public Page<PackageDto> listByCustomer(@PathVariable Long customerId, Pageable pageable) {
-        if (!customerRepo.existsById(customerId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found");
+        Page<PackageDto> page = packageRepo.findDtoBySenderId(customerId, pageable);
+        // o pagina goala poate insemna si client inexistent; altfel nu mai e nevoie de verificare
+        if (page.isEmpty()) requireCustomer(customerId);
+        return page;
+    }
+
+    // varianta cu cursor: fara COUNT(*) si fara OFFSET, cele mai noi colete primele
+    @GetMapping("/customers/{customerId}/packages/scroll")
+    public CursorPage<PackageDto> scrollByCustomer(@PathVariable Long customerId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        var rows = packageRepo.findDtoBySenderIdBefore(customerId, beforeId(cursor), KeysetCursor.limit(size));
+        if (rows.isEmpty()) requireCustomer(customerId);
+        return KeysetCursor.page(rows, size, p -> KeysetCursor.encode(p.getId()), p -> p);
+    }
+
+    // --- ISTORIC (din package_event, index-only scan) ---
+
+    @GetMapping("/packages/{id}/timeline")
+    public List<TimelineEntry> timeline(@PathVariable Long id) {
+        List<TimelineEntry> entries = eventLog.timeline(id);
+        if (entries.isEmpty() && !packageRepo.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found");
         }
-        return packageRepo.findBySenderId(customerId, pageable).map(this::toDto);
+        return entries;
     }
 
     // --- ASSIGN PACKAGE TO COURIER ---
 
     @PostMapping("/packages/{id}/assign")
-    @Transactional
     public PackageDto assign(@PathVariable Long id, @RequestParam Long courierId) {
-        PackageDelivery p = packageRepo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found"));
-
-        Courier c = courierRepo.findById(courierId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found"));
-
-        if (p.getStatus() == PackageStatus.DELIVERED) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Package already delivered");
+        requireCourierForAssign(courierId);
+        var o = transitions.assign(List.of(id), courierId);
+        if (!o.changed().isEmpty()) return o.changed().get(0);
+        if (!o.notFound().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found");
         }
-
-        p.setStatus(PackageStatus.PENDING);
-        p.setCourier(c);
-        p.setAssignedAt(Instant.now());
-
-        return toDto(p);
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Package already delivered");
     }
 
     // --- DELIVER PACKAGE ---
 
+    // un singur UPDATE conditionat; daca nu s-a schimbat nimic aflam de ce abia dupa
     @PostMapping("/packages/{id}/deliver")
-    @Transactional
     public PackageDto deliver(@PathVariable Long id) {
-        PackageDelivery p = packageRepo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found"));
-
-        if (p.getStatus() == PackageStatus.DELIVERED) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Package already delivered");
+        var o = transitions.deliver(List.of(id));
+        if (!o.changed().isEmpty()) return o.changed().get(0);
+        if (!o.notFound().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found");
         }
-        if (p.getStatus() != PackageStatus.PENDING) {
-             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Package must be PENDING to be delivered");
+        if (o.skipped().get(id) == PackageStatus.DELIVERED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Package already delivered");
         }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Package must be PENDING to be delivered");
+    }
+
+    // --- LIVRARE / ALOCARE IN LOT (un statement pentru toate id-urile) ---
 
-        p.setStatus(PackageStatus.DELIVERED);
-        p.setDeliveredAt(Instant.now());
+    @PostMapping("/packages/deliver")
+    public PackageBatchDto.Response deliverAll(@Valid @RequestBody PackageBatchDto.DeliverRequest body) {
+        return toBatchResponse(transitions.deliver(body.ids));
+    }
 
-        return toDto(p);
+    @PostMapping("/packages/assign")
+    public PackageBatchDto.Response assignAll(@Valid @RequestBody PackageBatchDto.AssignRequest body) {
+        requireCourierForAssign(body.courierId);
+        return toBatchResponse(transitions.assign(body.ids, body.courierId));
     }
 
     // --- LIST PACKAGES FOR A COURIER ---
 
     @GetMapping("/couriers/{courierId}/packages")
     public Page<PackageDto> listByCourier(@PathVariable Long courierId, Pageable pageable) {
+        Page<PackageDto> page = packageRepo.findDtoByCourierId(courierId, pageable);
+        if (page.isEmpty()) requireCourier(courierId);
+        return page;
+    }
+
+    @GetMapping("/couriers/{courierId}/packages/scroll")
+    public CursorPage<PackageDto> scrollByCourier(@PathVariable Long courierId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size) {
+        var rows = packageRepo.findDtoByCourierIdBefore(courierId, beforeId(cursor), KeysetCursor.limit(size));
+        if (rows.isEmpty()) requireCourier(courierId);
+        return KeysetCursor.page(rows, size, p -> KeysetCursor.encode(p.getId()), p -> p);
+    }
+
+    // istoricul se scrie in aceeasi tranzactie; abonatii SSE si cache-ul de tracking afla dupa commit
+    private void statusChanged(PackageStatusEvent e) {
+        eventLog.record(e);
+        events.publishEvent(e);
+    }
+
+    private void requireCustomer(Long customerId) {
+        if (!customerRepo.existsById(customerId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found");
+        }
+    }
+
+    // din cache-ul de nivel 2, de obicei fara SQL
+    private void requireCourierForAssign(Long courierId) {
+        if (courierRepo.findById(courierId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found");
+        }
+    }
+
+    private static PackageBatchDto.Response toBatchResponse(PackageTransitionService.Outcome o) {
+        PackageBatchDto.Response r = new PackageBatchDto.Response();
+        r.packages.addAll(o.changed());
+        o.notFound().forEach(id -> r.rejections.add(new PackageBatchDto.Rejected(id, PackageBatchDto.Reason.NOT_FOUND)));
+        o.skipped().forEach((id, status) -> r.rejections.add(new PackageBatchDto.Rejected(id,
+                status == PackageStatus.DELIVERED ? PackageBatchDto.Reason.ALREADY_DELIVERED : PackageBatchDto.Reason.NOT_PENDING)));
+        r.changed = r.packages.size();
+        r.rejected = r.rejections.size();
+        return r;
+    }
+
+    private void requireCourier(Long courierId) {
         if (!courierRepo.existsById(courierId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found");
         }
-        return packageRepo.findByCourierId(courierId,pageable).map(this::toDto);
+    }
+
+    private static long beforeId(String cursor) {
+        long[] c = KeysetCursor.decode(cursor, 1);
+        return c == null ? Long.MAX_VALUE : c[0];
     }
 
     // --- helper: mapare entitate -> DTO ---
@@ -156,6 +260,8 @@ public class PackageController {
         d.setWeightKg(p.getWeightKg());
         d.setPickupAddress(p.getPickupAddress());
         d.setDeliveryAddress(p.getDeliveryAddress());
+        d.setPickupLat(p.getPickupLat());
+        d.setPickupLng(p.getPickupLng());
         d.setCourierId(p.getCourier() == null ? null : p.getCourier().getId());
         d.setAssignedAt(p.getAssignedAt());
         d.setDeliveredAt(p.getDeliveredAt());
@@ -0,0 +1,81 @@
+package com.example.sdt.web;
+
+import com.example.sdt.repo.CourierRepository;
+import com.example.sdt.repo.CustomerRepository;
+import com.example.sdt.repo.PackageRepository;
+import com.example.sdt.service.PackageEventHub;
+import com.example.sdt.service.PackageStatusEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Stream SSE cu schimbarile de status, in locul polling-ului pe GET /api/packages/{id} si
+// pe listele clientului / curierului. Conexiunea se inchide la spring.mvc.async.request-timeout,
+// iar EventSource se reconecteaza singur.
+@RestController
+@RequestMapping("/api")
+public class PackageEventsController {
+
+    private final PackageEventHub hub;
+    private final PackageRepository packageRepo;
+    private final CustomerRepository customerRepo;
+    private final CourierRepository courierRepo;
+
+    @Value("${app.events.heartbeat:15s}")
+    private Duration heartbeat;
+
+    public PackageEventsController(PackageEventHub hub, PackageRepository packageRepo,
+                                   CustomerRepository customerRepo, CourierRepository courierRepo) {
+        this.hub = hub;
+        this.packageRepo = packageRepo;
+        this.customerRepo = customerRepo;
+        this.courierRepo = courierRepo;
+    }
+
+    // pe langa schimbari trimite si starea curenta ("snapshot"), citita dupa abonare ca sa nu
+    // se piarda o schimbare facuta intre citire si abonare
+    @GetMapping(value = "/packages/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PackageStatusEvent>> packageEvents(@PathVariable Long id) {
+        if (!packageRepo.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Package not found");
+        }
+        Mono<ServerSentEvent<PackageStatusEvent>> snapshot = Mono.fromCallable(() -> packageRepo.findById(id))
+                .flatMap(Mono::justOrEmpty)
+                .map(p -> ServerSentEvent.builder(PackageStatusEvent.of(p, null, null)).event("snapshot").build());
+        return stream(hub.forPackage(id)).mergeWith(snapshot);
+    }
+
+    @GetMapping(value = "/customers/{customerId}/packages/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PackageStatusEvent>> customerEvents(@PathVariable Long customerId) {
+        if (!customerRepo.existsById(customerId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found");
+        }
+        return stream(hub.forCustomer(customerId));
+    }
+
+    @GetMapping(value = "/couriers/{courierId}/packages/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PackageStatusEvent>> courierEvents(@PathVariable Long courierId) {
+        if (!courierRepo.existsById(courierId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found");
+        }
+        return stream(hub.forCourier(courierId));
+    }
+
+    // comentariile periodice tin conexiunea deschisa prin proxy-uri si detecteaza clientii plecati
+    private Flux<ServerSentEvent<PackageStatusEvent>> stream(Flux<PackageStatusEvent> events) {
+        Flux<ServerSentEvent<PackageStatusEvent>> keepAlive = Flux.interval(heartbeat)
+                .onBackpressureDrop()
+                .map(i -> ServerSentEvent.<PackageStatusEvent>builder().comment("keep-alive").build());
+        return Flux.merge(events.map(e -> ServerSentEvent.builder(e).event("status").build()), keepAlive);
+    }
+}
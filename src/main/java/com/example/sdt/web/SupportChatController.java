@@ -1,10 +1,16 @@
 package com.example.sdt.web;
+import com.example.sdt.security.AuthenticatedUser;
 import com.example.sdt.service.SupportAiService;
 import com.example.sdt.web.dto.SupportChatDto.ChatRequest;
 import com.example.sdt.web.dto.SupportChatDto.ChatResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import org.springframework.http.HttpStatus;
 
 @RestController
 @RequestMapping("/api/support")
@@ -26,11 +32,26 @@ public class SupportChatController {
             return ResponseEntity.badRequest().build();
         }
 
-        String email = (auth != null && auth.getName() != null)
-                ? auth.getName()
-                : "anonymous";
-
-        String reply = aiService.answerForUser(email, msg);
+        String reply = aiService.answerForUser(customerIdOf(auth), msg);
         return ResponseEntity.ok(new ChatResponse(reply, body.conversationId));
     }
+
+    // raspunsul trimis pe masura ce e generat: evenimente "token" cu fragmente de text,
+    // apoi un singur "done" (cu conversationId) cand raspunsul s-a terminat
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStream(@RequestBody ChatRequest body, Authentication auth) {
+        String msg = body.message == null ? "" : body.message.trim();
+        if (msg.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Message is required");
+        }
+        String conversationId = body.conversationId == null ? "" : body.conversationId;
+        return aiService.streamForUser(customerIdOf(auth), msg)
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Flux.just(ServerSentEvent.builder(conversationId).event("done").build()));
+    }
+
+    // principalul vine din UserStateCache, deci clientul se afla fara nicio interogare
+    private static Long customerIdOf(Authentication auth) {
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser u ? u.customerId() : null;
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.sdt.web;
+
+import com.example.sdt.service.TrackingCache;
+import com.example.sdt.service.TrackingView;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+// Urmarire publica dupa codul de tracking, servita din TrackingCache.
+@RestController
+@RequestMapping("/api/track")
+public class TrackingController {
+    private static final int MAX_CODE_LENGTH = 12;
+
+    private final TrackingCache trackingCache;
+
+    public TrackingController(TrackingCache trackingCache) {
+        this.trackingCache = trackingCache;
+    }
+
+    @GetMapping("/{trackingCode}")
+    public TrackingView track(@PathVariable String trackingCode) {
+        String code = trackingCode.trim().toUpperCase(Locale.ROOT);
+        // mai lung decat coloana nu poate exista; nu il punem nici in cache
+        if (code.isEmpty() || code.length() > MAX_CODE_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown tracking code");
+        }
+        return trackingCache.get(code)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown tracking code"));
+    }
+}
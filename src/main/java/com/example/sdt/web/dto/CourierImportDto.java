@@ -0,0 +1,51 @@
+package com.example.sdt.web.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+public class CourierImportDto {
+
+    public enum RowStatus { CREATED, UPDATED, REJECTED }
+
+    // un rand din CSV/NDJSON; managerul se da prin id sau prin email (poate fi din acelasi fisier)
+    public static class Row {
+        @NotBlank
+        public String name;
+
+        @Email @NotBlank
+        public String email;
+
+        public Long managerId;
+
+        @Email
+        public String managerEmail;
+
+        public Double lastLat;
+        public Double lastLng;
+    }
+
+    public static class RowResult {
+        public int index;
+        public RowStatus status;
+        public Long id;
+        public String email;
+        public String message;
+
+        public RowResult(int index, RowStatus status, Long id, String email, String message) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.email = email;
+            this.message = message;
+        }
+    }
+
+    // ultima linie din raspuns, dupa toate RowResult-urile
+    public static class Summary {
+        public int received;
+        public int created;
+        public int updated;
+        public int rejected;
+        public long tookMs;
+    }
+}
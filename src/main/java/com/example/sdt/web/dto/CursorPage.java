@@ -0,0 +1,14 @@
+package com.example.sdt.web.dto;
+
+import java.util.List;
+
+// O pagina dintr-o listare cu cursor: fara total, nextCursor e null pe ultima pagina.
+public class CursorPage<T> {
+    public List<T> items;
+    public String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.sdt.web.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+
+public class LocationPingDto {
+    // folosit doar in batch; la ping-ul simplu id-ul vine din path
+    public Long courierId;
+
+    @NotNull @DecimalMin("-90") @DecimalMax("90")
+    public Double lat;
+
+    @NotNull @DecimalMin("-180") @DecimalMax("180")
+    public Double lng;
+
+    // momentul masurarii pe telefon; daca lipseste se foloseste ora serverului
+    public Instant at;
+}
@@ -0,0 +1,46 @@
+package com.example.sdt.web.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// livrare / alocare pentru mai multe colete intr-un singur UPDATE
+public class PackageBatchDto {
+
+    public enum Reason { NOT_FOUND, ALREADY_DELIVERED, NOT_PENDING }
+
+    public static class DeliverRequest {
+        @NotEmpty
+        @Size(max = 1000)
+        public List<@NotNull Long> ids;
+    }
+
+    public static class AssignRequest {
+        @NotEmpty
+        @Size(max = 1000)
+        public List<@NotNull Long> ids;
+
+        @NotNull
+        public Long courierId;
+    }
+
+    public static class Rejected {
+        public long id;
+        public Reason reason;
+
+        public Rejected(long id, Reason reason) {
+            this.id = id;
+            this.reason = reason;
+        }
+    }
+
+    public static class Response {
+        public int changed;
+        public int rejected;
+        public List<PackageDto> packages = new ArrayList<>();
+        public List<Rejected> rejections = new ArrayList<>();
+    }
+}
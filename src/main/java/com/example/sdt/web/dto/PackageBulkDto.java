@@ -0,0 +1,33 @@
+package com.example.sdt.web.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PackageBulkDto {
+
+    public enum RowStatus { CREATED, REJECTED }
+
+    public static class RowResult {
+        public int index;
+        public RowStatus status;
+        public Long id;
+        public String trackingCode;
+        public String message;
+
+        public RowResult(int index, RowStatus status, Long id, String trackingCode, String message) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.trackingCode = trackingCode;
+            this.message = message;
+        }
+    }
+
+    public static class Response {
+        public int received;
+        public int created;
+        public int rejected;
+        public long tookMs;
+        public List<RowResult> results = new ArrayList<>();
+    }
+}
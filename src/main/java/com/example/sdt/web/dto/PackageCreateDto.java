@@ -1,5 +1,7 @@
 package com.example.sdt.web.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -14,6 +16,12 @@ public class PackageCreateDto {
 
     private Double weightKg;
 
+    @DecimalMin("-90") @DecimalMax("90")
+    private Double pickupLat;
+
+    @DecimalMin("-180") @DecimalMax("180")
+    private Double pickupLng;
+
     public Long courierId;
     @NotNull
     public Long senderCustomerId;
@@ -34,6 +42,12 @@ public class PackageCreateDto {
     public Double getWeightKg() { return weightKg; }
     public void setWeightKg(Double weightKg) { this.weightKg = weightKg; }
 
+    public Double getPickupLat() { return pickupLat; }
+    public void setPickupLat(Double pickupLat) { this.pickupLat = pickupLat; }
+
+    public Double getPickupLng() { return pickupLng; }
+    public void setPickupLng(Double pickupLng) { this.pickupLng = pickupLng; }
+
     public Long getCourierId() {
         return courierId;
     }
@@ -11,6 +11,8 @@ public class PackageDto {
     private Double weightKg;
     private String pickupAddress;
     private String deliveryAddress;
+    private Double pickupLat;
+    private Double pickupLng;
 
     private Long courierId;       // poate fi null
     private Instant assignedAt;   // poate fi null
@@ -21,6 +23,24 @@ public class PackageDto {
 
     public PackageDto() {}
 
+    // folosit de proiectiile JPQL din PackageRepository ("select new ...")
+    public PackageDto(Long id, String trackingCode, PackageStatus status, Double weightKg,
+                      String pickupAddress, String deliveryAddress, Double pickupLat, Double pickupLng,
+                      Long courierId, Instant assignedAt, Instant deliveredAt, Long senderCustomerId) {
+        this.id = id;
+        this.trackingCode = trackingCode;
+        this.status = status;
+        this.weightKg = weightKg;
+        this.pickupAddress = pickupAddress;
+        this.deliveryAddress = deliveryAddress;
+        this.pickupLat = pickupLat;
+        this.pickupLng = pickupLng;
+        this.courierId = courierId;
+        this.assignedAt = assignedAt;
+        this.deliveredAt = deliveredAt;
+        this.senderCustomerId = senderCustomerId;
+    }
+
     // --- GETTERI + SETTERI
 
     public Long getId() { return id; }
@@ -41,6 +61,12 @@ public class PackageDto {
     public String getDeliveryAddress() { return deliveryAddress; }
     public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
 
+    public Double getPickupLat() { return pickupLat; }
+    public void setPickupLat(Double pickupLat) { this.pickupLat = pickupLat; }
+
+    public Double getPickupLng() { return pickupLng; }
+    public void setPickupLng(Double pickupLng) { this.pickupLng = pickupLng; }
+
     public Long getCourierId() { return courierId; }
     public void setCourierId(Long courierId) { this.courierId = courierId; }
 
@@ -0,0 +1,47 @@
+package com.example.sdt.bench;
+
+import com.example.sdt.security.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Verificare JWT la rece (HMAC + parsare JSON la fiecare apel) vs la cald (token deja in cache).
+// Rulare:
+//   mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtServiceBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET = "o-cheie-de-benchmark-de-cel-putin-32-caractere";
+
+    private JwtService cold;
+    private JwtService warm;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cold = new JwtService(SECRET);
+        warm = new JwtService(SECRET, 10_000);
+        token = cold.generate("courier@example.com",
+                Map.of("role", "COURIER", "courierId", 42L), 3600_000L);
+        warm.parse(token);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Claims coldVerify() {
+        return cold.parse(token);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Claims warmVerify() {
+        return warm.parse(token);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.sdt.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Login-uri pe secunda pe nucleu: un singur fir care verifica o parola bcrypt, pentru
+// fiecare cost. Capacitatea pool-ului de hashing ~ rezultat * app.auth.hashing.threads.
+// Rulare:
+//   mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main PasswordHashingBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(1)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "parola-de-benchmark";
+
+    @Param({"8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean loginPerCore() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.sdt.repo;
+
+import com.example.sdt.config.EntityCacheConfig;
+import com.example.sdt.domain.Courier;
+import com.example.sdt.domain.Customer;
+import com.example.sdt.domain.PackageDelivery;
+import com.example.sdt.domain.PackageStatus;
+import com.example.sdt.web.dto.PackageDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Citirile de colete din PackageController: proiectii direct in PackageDto, deci un singur
+// statement pentru date, fara lazy load per rand. Page<> mai adauga COUNT-ul pentru total,
+// dar doar cand pagina e plina (pe o prima pagina incompleta Spring Data il sare); varianta
+// /scroll nu are COUNT. Are nevoie de un Postgres, deci ruleaza doar cu -Pdb-tests, pe o baza
+// separata (SDT_TEST_DB_URL, implicit sdt_test) cu schema creata si stearsa de test; fiecare
+// test ruleaza in tranzactie anulata la final.
+@Tag("db")
+@DataJpaTest(properties = {
+        "spring.datasource.url=${SDT_TEST_DB_URL:jdbc:postgresql://localhost:5433/sdt_test}",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EntityCacheConfig.class, PackageRepositoryStatementCountTest.Meters.class})
+class PackageRepositoryStatementCountTest {
+
+    @TestConfiguration
+    static class Meters {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static final int PACKAGES = 5;
+
+    @Autowired
+    private PackageRepository packages;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics stats;
+    private Customer sender;
+    private Courier courier;
+    private Long anyPackageId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        sender = new Customer();
+        sender.setName("Sender");
+        sender.setEmail("sender-" + suffix + "@test.ro");
+        em.persist(sender);
+        courier = new Courier();
+        courier.setName("Courier");
+        courier.setEmail("courier-" + suffix + "@test.ro");
+        em.persist(courier);
+        for (int i = 0; i < PACKAGES; i++) {
+            PackageDelivery p = new PackageDelivery();
+            p.setTrackingCode("T" + ThreadLocalRandom.current().nextLong(10_000_000_000L, 99_999_999_999L));
+            p.setPickupAddress("a");
+            p.setDeliveryAddress("b");
+            p.setSender(sender);
+            p.setCourier(courier);
+            p.setStatus(PackageStatus.PENDING);
+            p.setAssignedAt(Instant.now());
+            anyPackageId = em.persist(p).getId();
+        }
+        em.flush();
+        em.clear();
+
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void getIsOneStatement() {
+        PackageDto dto = packages.findDtoById(anyPackageId).orElseThrow();
+
+        assertThat(dto.getCourierId()).isEqualTo(courier.getId());
+        assertThat(dto.getSenderCustomerId()).isEqualTo(sender.getId());
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void listByCustomerIsOneStatementPerPage() {
+        // prima pagina incompleta: fara COUNT
+        Page<PackageDto> page = packages.findDtoBySenderId(sender.getId(), PageRequest.of(0, 20));
+        assertThat(page.getTotalElements()).isEqualTo(PACKAGES);
+        assertThat(page.getContent()).allSatisfy(d -> assertThat(d.getSenderCustomerId()).isEqualTo(sender.getId()));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+
+        // pagina plina: date + COUNT
+        stats.clear();
+        packages.findDtoBySenderId(sender.getId(), PageRequest.of(0, 2));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+
+        stats.clear();
+        List<PackageDto> scroll = packages.findDtoBySenderIdBefore(sender.getId(), Long.MAX_VALUE, Limit.of(2));
+        assertThat(scroll).hasSize(2);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void listByCourierIsOneStatementPerPage() {
+        Page<PackageDto> page = packages.findDtoByCourierId(courier.getId(), PageRequest.of(0, 20));
+        assertThat(page.getTotalElements()).isEqualTo(PACKAGES);
+        assertThat(page.getContent()).allSatisfy(d -> assertThat(d.getCourierId()).isEqualTo(courier.getId()));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+
+        stats.clear();
+        packages.findDtoByCourierId(courier.getId(), PageRequest.of(0, 2));
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+
+        stats.clear();
+        List<PackageDto> scroll = packages.findDtoByCourierIdBefore(courier.getId(), Long.MAX_VALUE, Limit.of(2));
+        assertThat(scroll).hasSize(2);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).isZero();
+    }
+}
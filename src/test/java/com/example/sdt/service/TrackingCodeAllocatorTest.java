@@ -0,0 +1,42 @@
+package com.example.sdt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Unicitatea codurilor se sprijina pe faptul ca permutarea Feistel e o bijectie pe [0, 10^10):
+// unpermute o inverseaza, deci doua numere diferite din secventa nu pot da acelasi cod.
+// Fara baza de date: permute/unpermute nu ating JdbcTemplate.
+class TrackingCodeAllocatorTest {
+
+    private static final long SPACE = 10_000_000_000L;
+
+    private final TrackingCodeAllocator allocator = new TrackingCodeAllocator(null, 1000, "cheie-de-test");
+
+    @Test
+    void unpermuteInvertsPermute() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long n = random.nextLong(SPACE);
+            long code = allocator.permute(n);
+            assertThat(code).isBetween(0L, SPACE - 1);
+            assertThat(allocator.unpermute(code)).isEqualTo(n);
+        }
+        for (long n : new long[]{0, 1, 99_999, 100_000, SPACE - 1}) {
+            assertThat(allocator.unpermute(allocator.permute(n))).isEqualTo(n);
+        }
+    }
+
+    @Test
+    void consecutiveNumbersGiveDistinctCodes() {
+        // un bloc rezervat din secventa e un interval contiguu
+        Set<Long> codes = new HashSet<>();
+        for (long n = 5_000_000; n < 5_100_000; n++) {
+            assertThat(codes.add(allocator.permute(n))).isTrue();
+        }
+    }
+}